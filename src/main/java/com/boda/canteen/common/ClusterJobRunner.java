@@ -0,0 +1,168 @@
+package com.boda.canteen.common;
+
+import cn.hutool.core.util.StrUtil;
+import com.boda.canteen.entity.JobExecution;
+import com.boda.canteen.entity.JobLease;
+import com.boda.canteen.mapper.JobLeaseMapper;
+import com.boda.canteen.security.service.JobExecutionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 集群定时任务执行器：多节点部署时，同一任务的同一触发时刻只由一个节点执行
+ * 1. 各节点按相同Cron触发，先在jobLease表抢占「任务+触发时刻」的租约，抢到的节点执行，其余跳过
+ * 2. 执行期间每leaseSeconds/3续期一次；执行节点宕机时租约最迟leaseSeconds后过期
+ * 3. 未抢到租约的节点在对方执行期间每隔leaseSeconds复查一次，发现租约过期即接管本次触发
+ * 4. 每次实际执行写一条jobExecution记录（含执行节点），供管理端查看
+ */
+@Slf4j
+@Component
+public class ClusterJobRunner {
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    @Value("${canteen.job.lease-seconds:30}")
+    private int leaseSeconds;
+
+    @Value("${canteen.node-id:0}")
+    private long nodeId;
+
+    @Autowired
+    private JobLeaseMapper jobLeaseMapper;
+
+    @Autowired
+    private JobExecutionService jobExecutionService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private String node;
+
+    // 等待复查的任务：key=任务名称
+    private final Map<String, ScheduledFuture<?>> pendingChecks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        node = host + "#" + nodeId;
+        log.info("集群定时任务执行器初始化完成，节点={}, 租约时长={}秒", node, leaseSeconds);
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * 抢占租约并执行任务
+     * @param fireTime 本次触发的计划时间（各节点一致，作为「只执行一次」的判断依据）
+     * @return true=本节点执行了任务
+     */
+    public boolean runOnce(String jobName, Date fireTime, Runnable job) {
+        boolean acquired;
+        try {
+            acquired = jobLeaseMapper.insertIfAbsent(jobName, node, fireTime, leaseSeconds) > 0
+                    || jobLeaseMapper.acquire(jobName, node, fireTime, leaseSeconds) > 0;
+        } catch (Exception e) {
+            log.error("任务{}抢占租约失败，本次不执行，触发时刻={}", jobName, fireTime, e);
+            return false;
+        }
+        if (!acquired) {
+            watch(jobName, fireTime, job);
+            return false;
+        }
+
+        JobExecution execution = new JobExecution();
+        execution.setJobName(jobName);
+        execution.setFireTime(fireTime);
+        execution.setNode(node);
+        execution.setStartTime(new Date());
+        long renewMillis = Math.max(1, leaseSeconds / 3) * 1000L;
+        ScheduledFuture<?> heartbeat = taskScheduler.scheduleAtFixedRate(() -> renew(jobName, fireTime),
+                Instant.now().plusMillis(renewMillis), Duration.ofMillis(renewMillis));
+        try {
+            job.run();
+            execution.setStatus("SUCCESS");
+        } catch (RuntimeException e) {
+            execution.setStatus("FAILED");
+            execution.setErrorMsg(StrUtil.sub(e.getMessage(), 0, 500));
+            log.error("任务{}执行失败，触发时刻={}", jobName, fireTime, e);
+        } finally {
+            heartbeat.cancel(false);
+            execution.setEndTime(new Date());
+            execution.setDurationMs(execution.getEndTime().getTime() - execution.getStartTime().getTime());
+            try {
+                if (jobLeaseMapper.complete(jobName, node, fireTime) == 0) {
+                    log.warn("任务{}执行期间租约已被其他节点接管，触发时刻={}", jobName, fireTime);
+                }
+                jobExecutionService.save(execution);
+            } catch (Exception e) {
+                log.error("任务{}执行记录保存失败", jobName, e);
+            }
+        }
+        return true;
+    }
+
+    private void renew(String jobName, Date fireTime) {
+        try {
+            if (jobLeaseMapper.renew(jobName, node, fireTime, leaseSeconds) == 0) {
+                log.warn("任务{}租约续期失败（已被其他节点接管），触发时刻={}", jobName, fireTime);
+            }
+        } catch (Exception e) {
+            log.error("任务{}租约续期异常", jobName, e);
+        }
+    }
+
+    /**
+     * 其他节点正在执行本次触发：租约到期后复查，对方宕机则接管
+     */
+    private void watch(String jobName, Date fireTime, Runnable job) {
+        JobLease lease;
+        try {
+            lease = jobLeaseMapper.selectById(jobName);
+        } catch (Exception e) {
+            log.error("任务{}查询租约失败，放弃本次触发，触发时刻={}", jobName, fireTime, e);
+            return;
+        }
+        if (lease == null || lease.getFireTime() == null || lease.getFireTime().getTime() != fireTime.getTime()
+                || !STATUS_RUNNING.equals(lease.getStatus()) || node.equals(lease.getOwner())) {
+            // 本次触发已执行完成（或已有更新的触发），无需等待
+            log.info("任务{}本次触发由其他节点执行，跳过，触发时刻={}", jobName, fireTime);
+            return;
+        }
+        log.info("任务{}正在由节点{}执行，{}秒后复查", jobName, lease.getOwner(), leaseSeconds);
+        ScheduledFuture<?> old = pendingChecks.put(jobName, taskScheduler.schedule(() -> {
+            pendingChecks.remove(jobName);
+            runOnce(jobName, fireTime, job);
+        }, Instant.now().plusSeconds(leaseSeconds)));
+        if (old != null) {
+            old.cancel(false);
+        }
+    }
+
+    /**
+     * 停机时取消尚未到期的复查，避免调度器关闭时等待
+     */
+    @PreDestroy
+    public void destroy() {
+        pendingChecks.values().forEach(f -> f.cancel(false));
+        pendingChecks.clear();
+    }
+}
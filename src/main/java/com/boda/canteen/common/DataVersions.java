@@ -0,0 +1,94 @@
+package com.boda.canteen.common;
+
+import com.boda.canteen.entity.DataVersion;
+import com.boda.canteen.mapper.DataVersionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按表的数据版本号：读多写少的接口以版本号生成强ETag，客户端携带的If-None-Match一致时直接返回304，
+ * 不查询数据库也不经过Jackson序列化
+ * 1. 版本号保存在dataVersion表，本节点修改数据后调用bump，版本号+1并立即刷新本地快照
+ * 2. 各节点的本地快照每隔checkIntervalMs由一个请求顺带重新读取一次（整表只有几行），其他节点的修改在此之后生效
+ */
+@Slf4j
+@Component
+public class DataVersions {
+
+    public static final String MENU = "menu";
+    public static final String RECIPE = "recipe";
+    public static final String HISTORY = "history";
+
+    @Value("${canteen.data-version.check-interval-ms:5000}")
+    private long checkIntervalMs;
+
+    @Autowired
+    private DataVersionMapper dataVersionMapper;
+
+    private volatile Map<String, Long> versions = Map.of();
+    private final AtomicLong nextCheck = new AtomicLong();
+
+    /**
+     * 某张表当前的版本号（从未修改过为0）
+     */
+    public long version(String name) {
+        long now = System.currentTimeMillis();
+        long due = nextCheck.get();
+        // 同一检查周期内只有一个线程去读版本表，其余线程直接使用快照
+        if (now >= due && nextCheck.compareAndSet(due, now + checkIntervalMs)) {
+            reload();
+        }
+        return versions.getOrDefault(name, 0L);
+    }
+
+    /**
+     * 表数据已修改：版本号+1
+     */
+    public void bump(String name) {
+        dataVersionMapper.bump(name);
+        reload();
+    }
+
+    /**
+     * 由若干表的版本号及附加标识（如供餐日期）拼成ETag
+     */
+    public String etag(String scope, String... names) {
+        StringBuilder sb = new StringBuilder(scope);
+        for (String name : names) {
+            sb.append('-').append(name).append('.').append(version(name));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 条件GET：ETag与If-None-Match一致时已设置304，调用方直接返回null；否则响应带上ETag，调用方继续查询
+     * 缓存策略为private, no-cache：浏览器可缓存但每次都须携带ETag重新校验（默认的no-store会使浏览器不缓存、不发送If-None-Match）
+     */
+    public boolean checkNotModified(ServletWebRequest webRequest, String etag) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return webRequest.checkNotModified(etag);
+    }
+
+    private void reload() {
+        try {
+            Map<String, Long> map = new HashMap<>();
+            for (DataVersion v : dataVersionMapper.selectList(null)) {
+                map.put(v.getName(), v.getVersion());
+            }
+            versions = Map.copyOf(map);
+        } catch (Exception e) {
+            // 读取失败时沿用旧快照，下个周期再试
+            log.warn("数据版本号读取失败", e);
+        }
+    }
+}
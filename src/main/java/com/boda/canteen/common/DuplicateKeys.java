@@ -0,0 +1,25 @@
+package com.boda.canteen.common;
+
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * 唯一约束冲突的区分：DuplicateKeyException既可能来自业务唯一键（同一员工同一供餐日重复下单），
+ * 也可能来自主键（订单号碰撞，如多个节点使用了相同的canteen.node-id）；前者提示用户，后者属于服务端错误
+ */
+public final class DuplicateKeys {
+
+    // 同一员工同一供餐日仅一张订单
+    public static final String ORDER_SERVICE_DATE = "uk_user_service_date";
+
+    private DuplicateKeys() {
+    }
+
+    /**
+     * 冲突是否发生在指定的唯一键上
+     * MySQL 8的提示为 for key 'orderForm.uk_xxx'，MySQL 5.7 / MariaDB为 for key 'uk_xxx'
+     */
+    public static boolean violates(DuplicateKeyException e, String keyName) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && (message.contains("'" + keyName + "'") || message.contains("." + keyName + "'"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.boda.canteen.common;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 团体代订请求：一次为多名员工提交本时段订单
+ * 菜品只需传菜单ID和数量，名称/单位/单价以当前菜单为准
+ * Item同时作为订单修改接口（/order/edit）的请求明细
+ */
+@Data
+public class GroupOrderRequest {
+
+    private List<Member> members = new ArrayList<>();
+
+    @Data
+    public static class Member {
+        private Long userId;
+        private List<Item> items = new ArrayList<>();
+    }
+
+    @Data
+    public static class Item {
+        private Long menuId;
+        private Integer weight;
+    }
+}
@@ -0,0 +1,13 @@
+package com.boda.canteen.common;
+
+/**
+ * 业务主键生成器（订单号等）
+ * 具体策略由IdGeneratorConfig按配置canteen.id.strategy装配
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成下一个ID
+     */
+    long nextId();
+}
@@ -0,0 +1,108 @@
+package com.boda.canteen.common;
+
+import com.boda.canteen.entity.Menu;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 首页菜单网格的片段缓存：front/menuGrid.html只与供餐日期和菜单内容有关，与用户无关，
+ * 按「供餐日期#菜单版本」渲染一次HTML，所有请求共享，不再把菜单列表放进每个用户的session
+ * 1. 菜单修改后菜单数据版本号+1，下次请求按新版本重新渲染；并发渲染经SingleFlight合并
+ * 2. 只保留最近一次渲染结果（首页只展示当前供餐日）
+ */
+@Slf4j
+@Component
+public class MenuGridCache {
+
+    private static final String TEMPLATE = "front/menuGrid";
+    private static final Set<String> FRAGMENT = Set.of("menuGrid");
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private ServletContext servletContext;
+
+    private volatile JakartaServletWebApplication application;
+    private volatile Grid latest;
+    private final SingleFlight<String, Grid> renders = new SingleFlight<>();
+
+    /**
+     * 某供餐日菜单网格的HTML
+     */
+    public String get(LocalDate serviceDate, HttpServletRequest request, HttpServletResponse response) {
+        String key = serviceDate + "#" + dataVersions.version(DataVersions.MENU);
+        Grid grid = latest;
+        if (grid != null && grid.key.equals(key)) {
+            return grid.html;
+        }
+        grid = renders.execute(key, () -> render(key, menuSnapshotCache.get(serviceDate), request, response));
+        latest = grid;
+        return grid.html;
+    }
+
+    private Grid render(String key, List<Menu> menus, HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(application().buildExchange(request, new SharedUrlResponse(response)),
+                Locale.SIMPLIFIED_CHINESE, Map.of("menuList", menus));
+        String html = templateEngine.process(TEMPLATE, FRAGMENT, context);
+        log.debug("菜单网格已重新渲染：{}，{}个菜品，{}字符", key, menus.size(), html.length());
+        return new Grid(key, html);
+    }
+
+    private JakartaServletWebApplication application() {
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(servletContext);
+        }
+        return application;
+    }
+
+    /**
+     * 渲染共享HTML时不做URL重写：禁用Cookie的会话会在链接后拼接;jsessionid，不能出现在所有人共享的HTML里
+     */
+    private static final class SharedUrlResponse extends HttpServletResponseWrapper {
+
+        private SharedUrlResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+
+        @Override
+        public String encodeRedirectURL(String url) {
+            return url;
+        }
+    }
+
+    private static final class Grid {
+        private final String key;
+        private final String html;
+
+        private Grid(String key, String html) {
+            this.key = key;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.boda.canteen.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.entity.Menu;
+import com.boda.canteen.security.service.MenuService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 菜单快照缓存：按供餐日期缓存该日全部菜单（按createTime倒序的不可变列表），今日/明日菜单与点餐首页直接读快照，
+ * 分页与按名称筛选在内存中完成，不再每次请求都执行分页查询+COUNT
+ * 1. 菜单只在管理端增删改/复用时变化，MenuController写入后调用evictAll（菜单数据版本号+1），下次读取时重建
+ * 2. 快照记录加载时的菜单数据版本号，其他节点修改菜单后随版本号检查生效；快照另最多保留ttlSeconds
+ * 3. 已过去的供餐日在快照未命中时清除
+ * 4. 快照重建、菜品详情、供餐日期列表等仍需查库的读取经SingleFlight合并，同一时刻的相同查询只执行一次
+ */
+@Slf4j
+@Component
+public class MenuSnapshotCache {
+
+    @Value("${canteen.menu-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Autowired
+    private MenuService menuService;
+
+    @Autowired
+    private MenuWindow menuWindow;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    private final Map<LocalDate, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // 请求合并：快照重建key=供餐日期#菜单版本，菜品详情key=菜单ID，供餐日期列表key=起始日期#菜单版本
+    private final SingleFlight<String, Snapshot> snapshotLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Menu> menuByIdLoads = new SingleFlight<>();
+    private final SingleFlight<String, List<LocalDate>> serviceDateLoads = new SingleFlight<>();
+
+    /**
+     * 某供餐日的全部菜单（不可修改）
+     */
+    public List<Menu> get(LocalDate serviceDate) {
+        long now = System.currentTimeMillis();
+        Snapshot s = snapshots.get(serviceDate);
+        if (s != null && s.isValid(now, dataVersions.version(DataVersions.MENU))) {
+            return s.menus;
+        }
+        LocalDate current = menuWindow.current().getCurrentServiceDate();
+        snapshots.keySet().removeIf(day -> day.isBefore(current));
+        // 同一供餐日、同一菜单版本并发未命中时只有一个请求查库，其余等待其结果
+        long version = dataVersions.version(DataVersions.MENU);
+        Snapshot loaded = snapshotLoads.execute(serviceDate + "#" + version, () -> load(serviceDate, version));
+        snapshots.put(serviceDate, loaded);
+        return loaded.menus;
+    }
+
+    /**
+     * 按ID查询菜单（菜品详情），同一菜品的并发查询合并为一次
+     */
+    public Menu getMenu(Long menuId) {
+        return menuByIdLoads.execute(menuId, () -> menuService.getById(menuId));
+    }
+
+    /**
+     * 某供餐日及之后已发布菜单的日期（升序），同一起始日期、同一菜单版本的并发查询合并为一次
+     */
+    public List<LocalDate> serviceDatesFrom(LocalDate from) {
+        long version = dataVersions.version(DataVersions.MENU);
+        return serviceDateLoads.execute(from + "#" + version, () -> {
+            QueryWrapper<Menu> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("DISTINCT serviceDate")
+                    .ge("serviceDate", from)
+                    .orderByAsc("serviceDate");
+            return menuService.list(queryWrapper).stream()
+                    .map(m -> MyTimeUtils.toLocalDate(m.getServiceDate()))
+                    .collect(Collectors.toUnmodifiableList());
+        });
+    }
+
+    /**
+     * 各类读取的请求合并指标
+     */
+    public Map<String, Object> coalescingMetrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("snapshot", snapshotLoads.metrics());
+        map.put("menuById", menuByIdLoads.metrics());
+        map.put("serviceDates", serviceDateLoads.metrics());
+        return map;
+    }
+
+    /**
+     * 某供餐日菜单的内存分页（name非空时按名称精确筛选，与原查询条件一致）
+     */
+    public Page<Menu> page(LocalDate serviceDate, int page, int limit, String name) {
+        List<Menu> menus = get(serviceDate);
+        if (StringUtils.hasText(name)) {
+            menus = menus.stream().filter(m -> name.equals(m.getName())).collect(Collectors.toList());
+        }
+        Page<Menu> pageInfo = new Page<>(page, limit, menus.size());
+        if (limit <= 0) {
+            pageInfo.setRecords(menus);
+            return pageInfo;
+        }
+        int from = (int) Math.min((long) Math.max(page - 1, 0) * limit, menus.size());
+        int to = Math.min(from + limit, menus.size());
+        pageInfo.setRecords(menus.subList(from, to));
+        return pageInfo;
+    }
+
+    /**
+     * 菜单已修改：菜单数据版本号+1（各节点快照及今日/明日菜单的ETag随之失效），并丢弃本节点全部快照
+     */
+    public void evictAll() {
+        dataVersions.bump(DataVersions.MENU);
+        snapshots.clear();
+    }
+
+    // 记录加载开始时的版本号，修改前开始加载、修改后才放入的快照不会被当作最新
+    private Snapshot load(LocalDate serviceDate, long version) {
+        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(Menu::getServiceDate, serviceDate)
+                .orderByDesc(Menu::getCreateTime);
+        List<Menu> menus = List.copyOf(menuService.list(queryWrapper));
+        log.debug("供餐日{}菜单快照已重建，共{}个菜品", serviceDate, menus.size());
+        return new Snapshot(menus, version, System.currentTimeMillis() + ttlSeconds * 1000);
+    }
+
+    private static final class Snapshot {
+        private final List<Menu> menus;
+        private final long version;
+        private final long expireAt;
+
+        private Snapshot(List<Menu> menus, long version, long expireAt) {
+            this.menus = menus;
+            this.version = version;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isValid(long now, long currentVersion) {
+            return version == currentVersion && now < expireAt;
+        }
+    }
+}
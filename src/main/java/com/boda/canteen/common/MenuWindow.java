@@ -0,0 +1,222 @@
+package com.boda.canteen.common;
+
+import com.boda.canteen.entity.TimeConfig;
+import com.boda.canteen.security.service.TimeConfigService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * 菜单时段服务：集中计算「今日菜单/明日菜单」时段边界与配送时段
+ * 1. 时间配置只在加载时解析一次，各时段边界预先换算为毫秒值，保存在不可变快照中
+ * 2. 快照记录自身的有效区间[validFrom, validUntil)，当前时间越过边界（orderDeadline、mealStartTime、零点）时才重新计算并整体替换
+ * 3. 请求期的判断只是long比较，无需再解析时间字符串
+ * 时间配置变化时由TimeConfigService发布TimeConfigChangedEvent触发重建（本节点修改立即生效，其他节点修改经版本检查后生效）
+ */
+@Slf4j
+@Component
+public class MenuWindow {
+
+    private static final String DEFAULT_ORDER_DEADLINE = "09:00:00";
+    private static final String DEFAULT_MEAL_START_TIME = "11:30:00";
+
+    @Autowired
+    private TimeConfigService timeConfigService;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 获取当前时刻的时段快照（越过边界时自动重算）
+     */
+    public Snapshot current() {
+        long now = MyTimeUtils.currentTimeMillis();
+        Snapshot s = snapshot;
+        if (s == null) {
+            return reload();
+        }
+        if (now < s.validFrom || now >= s.validUntil) {
+            s = of(now, s.orderDeadline, s.mealStartTime);
+            snapshot = s;
+        }
+        return s;
+    }
+
+    /**
+     * 重新读取时间配置并重建快照
+     */
+    public Snapshot reload() {
+        return apply(timeConfigService.getCurrentConfig());
+    }
+
+    /**
+     * 时间配置变化：按服务中的最新配置重建快照（事件在加载锁之外发布，并发重载时可能乱序到达，不使用事件携带的配置）
+     */
+    @EventListener
+    public void onTimeConfigChanged(TimeConfigChangedEvent event) {
+        apply(timeConfigService.getCurrentConfig());
+    }
+
+    private Snapshot apply(TimeConfig config) {
+        String orderDeadline = config == null || config.getOrderDeadline() == null
+                ? DEFAULT_ORDER_DEADLINE : config.getOrderDeadline();
+        String mealStartTime = config == null || config.getMealStartTime() == null
+                ? DEFAULT_MEAL_START_TIME : config.getMealStartTime();
+        Snapshot old = snapshot;
+        Snapshot s = of(MyTimeUtils.currentTimeMillis(), orderDeadline, mealStartTime);
+        snapshot = s;
+        if (old != null && (!old.orderDeadline.equals(s.orderDeadline) || !old.mealStartTime.equals(s.mealStartTime))) {
+            log.info("菜单时段配置已更新：orderDeadline={}, mealStartTime={}", s.orderDeadline, s.mealStartTime);
+        }
+        return s;
+    }
+
+    /**
+     * 指定供餐日菜单时段的起始时间（前一日mealStartTime）
+     */
+    public Date windowStart(LocalDate serviceDate) {
+        Snapshot s = current();
+        return new Date(toMillis(serviceDate.minusDays(1), s.mealStartTime));
+    }
+
+    /**
+     * 按给定时刻与时间配置计算快照（日期边界取业务时钟的时区，与MyTimeUtils.getCurrentServiceDate一致）
+     */
+    public static Snapshot of(long now, String orderDeadline, String mealStartTime) {
+        LocalTime deadline = LocalTime.parse(orderDeadline.trim(), MyTimeUtils.LENIENT_TIME_FORMATTER);
+        LocalTime mealStart = LocalTime.parse(mealStartTime.trim(), MyTimeUtils.LENIENT_TIME_FORMATTER);
+        ZoneId zone = MyTimeUtils.getClock().getZone();
+        LocalDate today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+
+        long todayDeadline = toMillis(today, deadline, zone);
+        long todayMealStart = toMillis(today, mealStart, zone);
+        // 与MyTimeUtils.isAfterTodayOrderDeadline一致：严格超过截止时间才进入下一时段
+        LocalDate currentServiceDate = now > todayDeadline ? today.plusDays(1) : today;
+        // 配送时段：orderDeadline <= 当前时间 <= mealStartTime
+        boolean inDeliveryPeriod = now >= todayDeadline && now <= todayMealStart;
+
+        // 上述两个判断只会在这些时刻发生变化
+        long[] boundaries = {
+                toMillis(today, LocalTime.MIDNIGHT, zone),
+                todayDeadline,
+                todayDeadline + 1,
+                todayMealStart + 1,
+                toMillis(today.plusDays(1), LocalTime.MIDNIGHT, zone)
+        };
+        long validFrom = Long.MIN_VALUE;
+        long validUntil = Long.MAX_VALUE;
+        for (long b : boundaries) {
+            if (b <= now) {
+                validFrom = Math.max(validFrom, b);
+            } else {
+                validUntil = Math.min(validUntil, b);
+            }
+        }
+
+        return new Snapshot(deadline.format(MyTimeUtils.TIME_FORMATTER), mealStart.format(MyTimeUtils.TIME_FORMATTER),
+                currentServiceDate, inDeliveryPeriod,
+                toMillis(currentServiceDate.minusDays(1), mealStart, zone),
+                toMillis(currentServiceDate, deadline, zone),
+                toMillis(currentServiceDate, mealStart, zone),
+                toMillis(currentServiceDate.plusDays(1), deadline, zone),
+                validFrom, validUntil);
+    }
+
+    private static long toMillis(LocalDate date, String time) {
+        return toMillis(date, LocalTime.parse(time, MyTimeUtils.LENIENT_TIME_FORMATTER), MyTimeUtils.getClock().getZone());
+    }
+
+    private static long toMillis(LocalDate date, LocalTime time, ZoneId zone) {
+        return date.atTime(time).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 不可变的时段快照
+     * 当前时段：供餐日前一日mealStartTime ~ 供餐日orderDeadline（今日菜单）
+     * 下一时段：供餐日mealStartTime ~ 次日orderDeadline（明日菜单）
+     */
+    public static final class Snapshot {
+        private final String orderDeadline;
+        private final String mealStartTime;
+        private final LocalDate currentServiceDate;
+        private final boolean inDeliveryPeriod;
+        private final long currentStart;
+        private final long currentEnd;
+        private final long nextStart;
+        private final long nextEnd;
+        private final long validFrom;
+        private final long validUntil;
+
+        private Snapshot(String orderDeadline, String mealStartTime, LocalDate currentServiceDate, boolean inDeliveryPeriod,
+                         long currentStart, long currentEnd, long nextStart, long nextEnd,
+                         long validFrom, long validUntil) {
+            this.orderDeadline = orderDeadline;
+            this.mealStartTime = mealStartTime;
+            this.currentServiceDate = currentServiceDate;
+            this.inDeliveryPeriod = inDeliveryPeriod;
+            this.currentStart = currentStart;
+            this.currentEnd = currentEnd;
+            this.nextStart = nextStart;
+            this.nextEnd = nextEnd;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+        }
+
+        /** 订餐截止时间（HH:mm:ss） */
+        public String getOrderDeadline() {
+            return orderDeadline;
+        }
+
+        /** 配餐开始时间（HH:mm:ss） */
+        public String getMealStartTime() {
+            return mealStartTime;
+        }
+
+        /** 当前可点单时段的供餐日期 */
+        public LocalDate getCurrentServiceDate() {
+            return currentServiceDate;
+        }
+
+        /** 下一时段（明日菜单）的供餐日期 */
+        public LocalDate getNextServiceDate() {
+            return currentServiceDate.plusDays(1);
+        }
+
+        /** 是否处于配送时段（禁止当前时段点单/取消/修改） */
+        public boolean isInDeliveryPeriod() {
+            return inDeliveryPeriod;
+        }
+
+        /** 时间点是否属于当前时段（包含边界） */
+        public boolean inCurrentWindow(long time) {
+            return time >= currentStart && time <= currentEnd;
+        }
+
+        public Date getCurrentStart() {
+            return new Date(currentStart);
+        }
+
+        public Date getCurrentEnd() {
+            return new Date(currentEnd);
+        }
+
+        public Date getNextStart() {
+            return new Date(nextStart);
+        }
+
+        public Date getNextEnd() {
+            return new Date(nextEnd);
+        }
+
+        /** 快照失效时间（下一个边界），毫秒 */
+        public long getValidUntil() {
+            return validUntil;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.boda.canteen.common;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * 多行VALUES / CASE WHEN批量语句的分块执行：按MAX_ROWS_PER_STATEMENT行拆成多条语句，避免单条语句超过max_allowed_packet
+ */
+public final class MultiRowStatements {
+
+    // 单条语句最多拼接的行数
+    public static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private MultiRowStatements() {
+    }
+
+    /**
+     * 分块执行批量语句，返回各块影响行数之和（list为空时不执行）
+     */
+    public static <T> int executeInChunks(List<T> list, ToIntFunction<List<T>> statement) {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        int rows = 0;
+        for (int from = 0; from < list.size(); from += MAX_ROWS_PER_STATEMENT) {
+            int to = Math.min(from + MAX_ROWS_PER_STATEMENT, list.size());
+            rows += statement.applyAsInt(list.subList(from, to));
+        }
+        return rows;
+    }
+}
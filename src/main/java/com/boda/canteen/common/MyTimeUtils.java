@@ -1,6 +1,8 @@
 package com.boda.canteen.common;
 import cn.hutool.core.date.DateUtil;
+import com.boda.canteen.exception.CustomException;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -24,17 +26,53 @@ public class MyTimeUtils {
     // 宽松时间格式器（兼容一位小时）
     public static final DateTimeFormatter LENIENT_TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm:ss");
 
+    // 业务时钟：所有「当前时间」均由此读取，启动时由ClockConfig绑定为Clock Bean（测试可替换为模拟时钟）
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * 绑定业务时钟
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock == null ? Clock.systemDefaultZone() : newClock;
+    }
+
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * 当前时间（毫秒）
+     */
+    public static long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    /**
+     * 当前时间（Date）
+     */
+    public static Date now() {
+        return new Date(clock.millis());
+    }
+
+    /**
+     * 当前时间（LocalDateTime）
+     */
+    public static LocalDateTime nowDateTime() {
+        return LocalDateTime.now(clock);
+    }
+
     /**
      *  获取当前时间的一周的开始
      */
     public static Date getWeekOfBeginTime() {
         // 获取当前时间是这周第几天
-        int thisDayOfWeek = DateUtil.thisDayOfWeek();
+        Date now = now();
+        int thisDayOfWeek = DateUtil.dayOfWeek(now);
         Date weekOfBeginTime;
         if (thisDayOfWeek == 1) {
-            weekOfBeginTime = DateUtil.beginOfDay(DateUtil.offsetDay(DateUtil.date(),(DateUtil.thisDayOfWeek()-7)));
+            weekOfBeginTime = DateUtil.beginOfDay(DateUtil.offsetDay(now,(thisDayOfWeek-7)));
         }else{
-            weekOfBeginTime = DateUtil.beginOfDay(DateUtil.offsetDay(DateUtil.date(),(2 - DateUtil.thisDayOfWeek())));
+            weekOfBeginTime = DateUtil.beginOfDay(DateUtil.offsetDay(now,(2 - thisDayOfWeek)));
         }
         return weekOfBeginTime;
     }
@@ -44,12 +82,13 @@ public class MyTimeUtils {
      */
     public static Date getWeekOfEndTime() {
         // 获取当前时间是这周第几天
-        int thisDayOfWeek = DateUtil.thisDayOfWeek();
+        Date now = now();
+        int thisDayOfWeek = DateUtil.dayOfWeek(now);
         Date weekOfEndTime;
         if (thisDayOfWeek == 1) {   // 是否是周日
-            weekOfEndTime = DateUtil.endOfDay(DateUtil.date());
+            weekOfEndTime = DateUtil.endOfDay(now);
         }else{
-            weekOfEndTime = DateUtil.endOfDay(DateUtil.offsetDay(DateUtil.date(),(8 - DateUtil.thisDayOfWeek())));
+            weekOfEndTime = DateUtil.endOfDay(DateUtil.offsetDay(now,(8 - thisDayOfWeek)));
         }
         return weekOfEndTime;
     }
@@ -87,25 +126,39 @@ public class MyTimeUtils {
         Date month = DateUtil.parse(date);
         return DateUtil.endOfDay(DateUtil.offsetDay(DateUtil.offsetMonth(month, 1), -1));
     }
+
+    /**
+     * 通过yyyy-MM获取该月第一天
+     */
+    public static LocalDate getMonthFirstDay(String month) {
+        return LocalDate.parse(month + "-01");
+    }
+
+    /**
+     * 通过yyyy-MM获取该月最后一天
+     */
+    public static LocalDate getMonthLastDay(String month) {
+        return getMonthFirstDay(month).plusMonths(1).minusDays(1);
+    }
     // 修正后的日期转换方法（将Instant转换为Date）
 // 新增：获取当天开始时间（00:00:00）
     public static Date getDayOfBeginTime() {
-        return Date.from(LocalDateTime.now().toLocalDate().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+        return Date.from(LocalDate.now(clock).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
     }
 
     // 新增：获取当天结束时间（23:59:59）
     public static Date getDayOfEndTime() {
-        return Date.from(LocalDateTime.now().toLocalDate().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
+        return Date.from(LocalDate.now(clock).atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
     }
 
     // 新增：获取明天开始时间（明天00:00:00）
     public static Date getNextDayOfBeginTime() {
-        return Date.from(LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+        return Date.from(LocalDate.now(clock).plusDays(1).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
     }
 
     // 新增：获取明天结束时间（明天23:59:59）
     public static Date getNextDayOfEndTime() {
-        return Date.from(LocalDateTime.now().toLocalDate().plusDays(1).atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
+        return Date.from(LocalDate.now(clock).plusDays(1).atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
     }
     // ========== 修复后的核心方法 ==========
     /**
@@ -158,7 +211,7 @@ public class MyTimeUtils {
         // 解析截止时间为LocalTime
         LocalTime orderDeadline = LocalTime.parse(orderDeadlineStr, LENIENT_TIME_FORMATTER);
         // 当前时间
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         // 本日截止时间（今日日期 + 截止时间）
         LocalDateTime todayOrderDeadline = LocalDateTime.of(now.toLocalDate(), orderDeadline);
         // 比较当前时间是否超过本日截止时间
@@ -169,21 +222,21 @@ public class MyTimeUtils {
      * 获取上一日的日期（LocalDate）
      */
     public static LocalDate getYesterday() {
-        return LocalDate.now().minusDays(1);
+        return LocalDate.now(clock).minusDays(1);
     }
 
     /**
      * 获取今日日期（LocalDate）
      */
     public static LocalDate getToday() {
-        return LocalDate.now();
+        return LocalDate.now(clock);
     }
 
     /**
      * 获取明日日期（LocalDate）
      */
     public static LocalDate getTomorrow() {
-        return LocalDate.now().plusDays(1);
+        return LocalDate.now(clock).plusDays(1);
     }
 
     /**
@@ -192,4 +245,41 @@ public class MyTimeUtils {
     public static LocalDate getNextDay(LocalDate date) {
         return date.plusDays(1);
     }
+
+    /**
+     * LocalDate转Date（当日00:00:00）
+     */
+    public static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Date转LocalDate（系统时区）
+     */
+    public static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * 获取当前可点单时段的供餐日期
+     * 已超过本日orderDeadline → 明日；否则 → 本日（时段为供餐日前一日mealStartTime ~ 供餐日orderDeadline）
+     * @param orderDeadlineStr 订餐截止时间（HH:mm:ss）
+     */
+    public static LocalDate getCurrentServiceDate(String orderDeadlineStr) {
+        return isAfterTodayOrderDeadline(orderDeadlineStr) ? getTomorrow() : getToday();
+    }
+
+    /**
+     * 解析供餐日期（yyyy-MM-dd），为空时返回默认值
+     */
+    public static LocalDate parseServiceDate(String serviceDateStr, LocalDate defaultDate) {
+        if (serviceDateStr == null || serviceDateStr.trim().isEmpty()) {
+            return defaultDate;
+        }
+        try {
+            return LocalDate.parse(serviceDateStr.trim());
+        } catch (DateTimeParseException e) {
+            throw new CustomException("供餐日期格式错误（需yyyy-MM-dd）：" + serviceDateStr);
+        }
+    }
 }
\ No newline at end of file
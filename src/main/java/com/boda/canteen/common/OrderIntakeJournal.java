@@ -0,0 +1,205 @@
+package com.boda.canteen.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单受理日志：基于内存映射文件的环形追加日志
+ * 文件头：magic(4) + 版本(4) + 写入偏移(8) + 已入库偏移(8)，之后为 [长度(4) + 内容] 的记录序列
+ * 1. 追加只写映射内存，进程崩溃后数据仍在页缓存中，重启后从「已入库偏移」回放到「写入偏移」
+ * 2. 两个偏移为只增不减的逻辑位置，文件内位置 = 文件头 + (逻辑位置 - 文件头) % 数据区大小；
+ *    已入库的记录所占空间立即可被后续追加复用，写入方持续领先入库方时也不会写满
+ * 3. 数据区末尾放不下一条记录时写入折返标记（剩余不足4字节时省略标记），跳到数据区开头继续写
+ * 4. 未入库数据加上本条（及折返跳过的末尾）超过数据区大小时追加失败，由调用方拒绝受理（背压）
+ * 非线程安全的读写全部在本类内部加锁
+ */
+public class OrderIntakeJournal implements Closeable {
+
+    private static final int MAGIC = 0x4F524A31;
+    // 版本2：偏移改为逻辑位置（未折返时与版本1的文件内位置相同，可直接沿用版本1的文件）
+    private static final int VERSION = 2;
+    private static final int WRAP_MARKER = -1;
+    private static final int WRITE_OFFSET_POS = 8;
+    private static final int DRAINED_OFFSET_POS = 16;
+    public static final int HEADER_SIZE = 32;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int dataSize;
+    // 写盘强制刷新（掉电保护），默认只依赖页缓存
+    private final boolean forceOnAppend;
+
+    private long writeOffset;
+    private long drainedOffset;
+
+    public OrderIntakeJournal(File path, int capacity, boolean forceOnAppend) throws IOException {
+        File parent = path.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("无法创建订单日志目录：" + parent);
+        }
+        boolean existed = path.exists() && path.length() >= HEADER_SIZE;
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        this.forceOnAppend = forceOnAppend;
+        long pendingWrite = HEADER_SIZE;
+        long pendingDrained = HEADER_SIZE;
+        int size = capacity;
+        if (existed) {
+            file.seek(0);
+            if (file.readInt() == MAGIC) {
+                file.seek(WRITE_OFFSET_POS);
+                pendingWrite = file.readLong();
+                pendingDrained = file.readLong();
+                if (pendingWrite < HEADER_SIZE || pendingDrained < HEADER_SIZE
+                        || pendingWrite - pendingDrained > file.length() - HEADER_SIZE) {
+                    throw new IOException("订单日志文件头已损坏：" + path);
+                }
+                if (pendingDrained >= pendingWrite) {
+                    // 记录已全部入库（含版本1归位过程中崩溃：写入偏移已归位、已入库偏移未归位），按配置大小从头开始
+                    pendingWrite = HEADER_SIZE;
+                    pendingDrained = HEADER_SIZE;
+                } else {
+                    // 仍有未入库记录：沿用原文件大小，数据区大小变化会打乱折返后的记录位置
+                    size = (int) file.length();
+                }
+            }
+        }
+        if (file.length() != size) {
+            file.setLength(size);
+        }
+        this.capacity = size;
+        this.dataSize = size - HEADER_SIZE;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        updateOffsets(pendingWrite, pendingDrained);
+    }
+
+    /**
+     * 追加一条记录
+     * @return 记录结束的逻辑位置（入库后用于推进已入库偏移）；空间不足返回-1
+     */
+    public synchronized long append(byte[] payload) {
+        int length = 4 + payload.length;
+        long pos = writeOffset;
+        int tail = dataSize - offsetInData(pos);
+        int skip = length > tail ? tail : 0;
+        if (length > dataSize || pos - drainedOffset + skip + length > dataSize) {
+            return -1;
+        }
+        if (skip > 0) {
+            if (skip >= 4) {
+                buffer.putInt(physical(pos), WRAP_MARKER);
+            }
+            pos += skip;
+        }
+        int at = physical(pos);
+        buffer.putInt(at, payload.length);
+        buffer.position(at + 4);
+        buffer.put(payload);
+        long end = pos + length;
+        // 先写内容（及折返标记）再推进偏移，崩溃时只会丢失尚未确认的半条记录
+        buffer.putLong(WRITE_OFFSET_POS, end);
+        writeOffset = end;
+        if (forceOnAppend) {
+            buffer.force();
+        }
+        return end;
+    }
+
+    /**
+     * 读取尚未入库的全部记录（启动回放用）
+     */
+    public synchronized List<Entry> readPending() {
+        List<Entry> entries = new ArrayList<>();
+        long pos = drainedOffset;
+        while (pos < writeOffset) {
+            int tail = dataSize - offsetInData(pos);
+            if (tail < 4 || buffer.getInt(physical(pos)) == WRAP_MARKER) {
+                pos += tail;
+                continue;
+            }
+            int at = physical(pos);
+            int length = buffer.getInt(at);
+            byte[] payload = new byte[length];
+            buffer.position(at + 4);
+            buffer.get(payload);
+            pos += 4 + length;
+            entries.add(new Entry(payload, pos));
+        }
+        return entries;
+    }
+
+    /**
+     * 推进已入库偏移，之前的记录所占空间随即可被复用
+     */
+    public synchronized void markDrained(long endOffset) {
+        if (endOffset <= drainedOffset || endOffset > writeOffset) {
+            return;
+        }
+        drainedOffset = endOffset;
+        buffer.putLong(DRAINED_OFFSET_POS, endOffset);
+    }
+
+    /**
+     * 尚未入库的字节数
+     */
+    public synchronized long pendingBytes() {
+        return writeOffset - drainedOffset;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private int offsetInData(long logical) {
+        return (int) ((logical - HEADER_SIZE) % dataSize);
+    }
+
+    private int physical(long logical) {
+        return HEADER_SIZE + offsetInData(logical);
+    }
+
+    private void updateOffsets(long write, long drained) {
+        buffer.putLong(WRITE_OFFSET_POS, write);
+        buffer.putLong(DRAINED_OFFSET_POS, drained);
+        writeOffset = write;
+        drainedOffset = drained;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * 日志中的一条记录
+     */
+    public static class Entry {
+        private final byte[] payload;
+        private final long endOffset;
+
+        public Entry(byte[] payload, long endOffset) {
+            this.payload = payload;
+            this.endOffset = endOffset;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+    }
+}
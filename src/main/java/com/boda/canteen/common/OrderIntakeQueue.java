@@ -0,0 +1,364 @@
+package com.boda.canteen.common;
+
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.entity.OrderForm;
+import com.boda.canteen.exception.CustomException;
+import com.boda.canteen.security.service.BlanketOrderService;
+import com.boda.canteen.security.service.OrderFormService;
+import com.boda.canteen.security.service.ShopCartService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 订单异步受理队列（canteen.intake.async-enabled=true 时启用）
+ * 1. 受理：校验通过的订单先追加到本地内存映射日志，再放入有界队列，立即应答用户
+ * 2. 入库：后台单线程按批从队列取出，一个事务内批量插入orderForm/blanketOrder并按ID清理购物车，提交后推进日志偏移
+ * 3. 背压：队列满或日志空间不足时直接拒绝受理，不占用数据库连接
+ * 4. 回放：启动时把日志中未入库的记录（跳过已存在的订单号）同步补写入库
+ * 5. 判重：受理前只查本节点的内存预占，启动时先按orderForm中未结束供餐日的订单重建预占，重启后不会再应答同一时段的第二单
+ * 6. 死信：逐笔重试maxRetries次仍失败、或与该用户同一时段已有订单冲突的记录写入死信文件（journalPath.dead）后继续，
+ *    不阻塞后续订单；这些订单已应答用户，须人工处理，数量见lag()的deadLetterTotal
+ */
+@Slf4j
+@Component
+public class OrderIntakeQueue {
+
+    private static final String BUSY_MSG = "当前下单人数较多，请稍后再试";
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000L;
+
+    @Value("${canteen.intake.async-enabled:false}")
+    private boolean enabled;
+
+    @Value("${canteen.intake.journal-path:./data/order-intake.journal}")
+    private String journalPath;
+
+    @Value("${canteen.intake.journal-size-mb:64}")
+    private int journalSizeMb;
+
+    @Value("${canteen.intake.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    @Value("${canteen.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${canteen.intake.batch-size:200}")
+    private int batchSize;
+
+    @Value("${canteen.intake.max-retries:5}")
+    private int maxRetries;
+
+    @Autowired
+    private OrderFormService orderFormService;
+
+    @Autowired
+    private BlanketOrderService blanketOrderService;
+
+    @Autowired
+    private ShopCartService shopCartService;
+
+    @Autowired
+    private OrderWindowGuard orderWindowGuard;
+
+    @Autowired
+    private MenuWindow menuWindow;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderIntakeJournal journal;
+    private BlockingQueue<Pending> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean stopping;
+
+    private final AtomicLong acceptedTotal = new AtomicLong();
+    private final AtomicLong drainedTotal = new AtomicLong();
+    private final AtomicLong rejectedTotal = new AtomicLong();
+    private final AtomicLong skippedTotal = new AtomicLong();
+    private final AtomicLong deadLetterTotal = new AtomicLong();
+    private volatile long lastDrainAt;
+
+    @PostConstruct
+    public void start() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        journal = new OrderIntakeJournal(new File(journalPath), journalSizeMb * 1024 * 1024, forceOnAppend);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        restoreReservations();
+        replay();
+        writer = new Thread(this::drainLoop, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("订单异步受理已启用，日志文件：{}，队列容量：{}，批大小：{}", journalPath, queueCapacity, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 受理一笔订单：写日志 + 入队，成功即可应答用户
+     * @throws CustomException 队列已满或日志空间不足
+     */
+    public void accept(OrderIntakeRecord record) {
+        byte[] payload = JSONUtil.toJsonStr(record).getBytes(StandardCharsets.UTF_8);
+        // 生产者之间串行，消费者只会腾出空间，检查容量后add不会失败
+        synchronized (this) {
+            if (queue.remainingCapacity() == 0) {
+                rejectedTotal.incrementAndGet();
+                throw new CustomException(BUSY_MSG);
+            }
+            long endOffset = journal.append(payload);
+            if (endOffset < 0) {
+                rejectedTotal.incrementAndGet();
+                log.warn("订单日志空间不足（{}字节待入库），拒绝受理", journal.pendingBytes());
+                throw new CustomException(BUSY_MSG);
+            }
+            queue.add(new Pending(record, endOffset, System.currentTimeMillis()));
+        }
+        acceptedTotal.incrementAndGet();
+    }
+
+    /**
+     * 受理积压情况
+     */
+    public Map<String, Object> lag() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        if (!enabled) {
+            return map;
+        }
+        Pending oldest = queue.peek();
+        map.put("queuedOrders", queue.size());
+        map.put("queueCapacity", queueCapacity);
+        map.put("pendingJournalBytes", journal.pendingBytes());
+        map.put("journalCapacityBytes", journal.getCapacity());
+        map.put("oldestPendingMs", oldest == null ? 0 : System.currentTimeMillis() - oldest.acceptedAt);
+        map.put("acceptedTotal", acceptedTotal.get());
+        map.put("drainedTotal", drainedTotal.get());
+        map.put("rejectedTotal", rejectedTotal.get());
+        map.put("skippedTotal", skippedTotal.get());
+        map.put("deadLetterTotal", deadLetterTotal.get());
+        map.put("lastDrainAt", lastDrainAt);
+        return map;
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        stopping = true;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (!queue.isEmpty()) {
+            log.warn("停机时仍有{}笔订单未入库，将在下次启动时从日志回放", queue.size());
+        }
+        journal.close();
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!flush(batch)) {
+                    // 停机时数据库不可用：不再推进偏移，剩余订单全部留给下次启动回放
+                    return;
+                }
+                journal.markDrained(batch.get(batch.size() - 1).endOffset);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("订单异步入库线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 写入一批订单：整批一个事务；整批失败时逐笔写入，每笔最多重试maxRetries次
+     * 订单号已存在的跳过（已入库）；同一时段已有其他订单或重试耗尽的写入死信文件，不阻塞后续订单
+     * @return true=整批已处理完毕，可推进日志偏移；false=停机时数据库仍不可用，留待回放
+     */
+    private boolean flush(List<Pending> batch) throws InterruptedException {
+        List<OrderIntakeRecord> records = batch.stream().map(p -> p.record).collect(Collectors.toList());
+        try {
+            write(records);
+            drained(records.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("订单批量入库失败（{}笔），改为逐笔入库：{}", records.size(), e.getMessage());
+        }
+        for (OrderIntakeRecord record : records) {
+            long backoff = 500L;
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    write(Collections.singletonList(record));
+                    drained(1);
+                    break;
+                } catch (DuplicateKeyException e) {
+                    if (orderFormService.getById(record.getOrderId()) != null) {
+                        // 订单号已存在：该订单此前已入库（回放），跳过
+                        skippedTotal.incrementAndGet();
+                        log.info("订单{}已入库，跳过", record.getOrderId());
+                    } else {
+                        // 该用户同一时段已有其他订单（其他节点受理），已应答的订单无法入库
+                        deadLetter(record, e);
+                    }
+                    break;
+                } catch (Exception e) {
+                    if (stopping) {
+                        return false;
+                    }
+                    if (attempt >= maxRetries) {
+                        deadLetter(record, e);
+                        break;
+                    }
+                    log.error("订单{}入库失败，{}ms后重试（第{}次）", record.getOrderId(), backoff, attempt + 1, e);
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 无法入库的订单追加到死信文件（每行一条：原始记录与失败原因），写文件失败时至少完整记录到错误日志
+     */
+    private void deadLetter(OrderIntakeRecord record, Exception cause) {
+        deadLetterTotal.incrementAndGet();
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("time", System.currentTimeMillis());
+        line.put("error", String.valueOf(cause.getMessage()));
+        line.put("record", record);
+        String json = JSONUtil.toJsonStr(line);
+        log.error("订单{}无法入库，已转入死信（需人工处理）：{}", record.getOrderId(), json, cause);
+        try {
+            Files.write(new File(journalPath + ".dead").toPath(), (json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("订单{}写入死信文件失败", record.getOrderId(), e);
+        }
+    }
+
+    /**
+     * 按orderForm重建当前及之后供餐日的时段预占：内存预占在重启后为空，异步模式在入库前就应答用户，
+     * 不重建会应答同一时段的第二单，入库时才被唯一键拒绝
+     */
+    private void restoreReservations() {
+        LocalDate current = menuWindow.current().getCurrentServiceDate();
+        List<OrderForm> orders = orderFormService.list(new LambdaQueryWrapper<OrderForm>()
+                .select(OrderForm::getUserId, OrderForm::getServiceDate)
+                .ge(OrderForm::getServiceDate, current));
+        for (OrderForm order : orders) {
+            orderWindowGuard.tryReserve(order.getUserId(), MyTimeUtils.toLocalDate(order.getServiceDate()).toEpochDay());
+        }
+        log.info("已按{}笔未结束供餐日的订单重建时段预占", orders.size());
+    }
+
+    private void write(List<OrderIntakeRecord> records) {
+        List<OrderForm> orders = new ArrayList<>(records.size());
+        List<BlanketOrder> details = new ArrayList<>();
+        List<Integer> cartIds = new ArrayList<>();
+        for (OrderIntakeRecord record : records) {
+            orders.add(record.toOrderForm());
+            details.addAll(record.toDetails());
+            cartIds.addAll(record.getCartIds());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            orderFormService.insertBatch(orders);
+            blanketOrderService.insertBatch(details);
+            if (!cartIds.isEmpty()) {
+                shopCartService.removeByIds(cartIds);
+            }
+        });
+    }
+
+    private void drained(int count) {
+        drainedTotal.addAndGet(count);
+        lastDrainAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 启动回放：日志中未入库的记录同步补写，已存在的订单号直接跳过
+     */
+    private void replay() throws InterruptedException {
+        List<OrderIntakeJournal.Entry> entries = journal.readPending();
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("发现{}笔未入库的受理订单，开始回放", entries.size());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<OrderIntakeJournal.Entry> chunk = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            List<OrderIntakeRecord> records = new ArrayList<>(chunk.size());
+            for (OrderIntakeJournal.Entry entry : chunk) {
+                records.add(JSONUtil.toBean(new String(entry.getPayload(), StandardCharsets.UTF_8), OrderIntakeRecord.class));
+            }
+            Set<Long> existing = orderFormService.list(new LambdaQueryWrapper<OrderForm>()
+                            .select(OrderForm::getOrderId)
+                            .in(OrderForm::getOrderId, records.stream().map(OrderIntakeRecord::getOrderId).collect(Collectors.toList())))
+                    .stream().map(OrderForm::getOrderId).collect(Collectors.toSet());
+            List<Pending> todo = new ArrayList<>();
+            for (OrderIntakeRecord record : records) {
+                if (record.getServiceDate() != null) {
+                    // 回放的订单重新占住时段，防止重启后重复提交
+                    orderWindowGuard.tryReserve(record.getUserId(), record.getServiceDate());
+                }
+                if (!existing.contains(record.getOrderId())) {
+                    todo.add(new Pending(record, 0, System.currentTimeMillis()));
+                }
+            }
+            skippedTotal.addAndGet(records.size() - todo.size());
+            if (!todo.isEmpty()) {
+                flush(todo);
+            }
+            journal.markDrained(chunk.get(chunk.size() - 1).getEndOffset());
+        }
+        log.info("受理订单回放完成，补写{}笔，跳过{}笔", drainedTotal.get(), skippedTotal.get());
+    }
+
+    private static class Pending {
+        private final OrderIntakeRecord record;
+        private final long endOffset;
+        private final long acceptedAt;
+
+        private Pending(OrderIntakeRecord record, long endOffset, long acceptedAt) {
+            this.record = record;
+            this.endOffset = endOffset;
+            this.acceptedAt = acceptedAt;
+        }
+    }
+}
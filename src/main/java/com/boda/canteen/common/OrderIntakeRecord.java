@@ -0,0 +1,79 @@
+package com.boda.canteen.common;
+
+import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.entity.OrderForm;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 异步受理的订单日志记录（主订单 + 明细 + 待清理的购物车ID）
+ * 以JSON写入本地日志文件，时间字段存毫秒值/epochDay，便于崩溃后原样回放
+ */
+@Data
+public class OrderIntakeRecord {
+
+    private Long orderId;
+
+    private Long userId;
+
+    private String name;
+
+    private String telephone;
+
+    private String workInformation;
+
+    private Long orderPrice;
+
+    private Long orderTime;
+
+    // 供餐日期的epochDay，同时也是时段预占用的时段ID
+    private Long serviceDate;
+
+    // 受理时校验过的购物车ID，入库后按ID删除，不影响用户之后新加入的菜品
+    private List<Integer> cartIds = new ArrayList<>();
+
+    private List<Line> lines = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private String name;
+        private String unit;
+        private Integer weight;
+        private Long price;
+        private Long totalPrice;
+    }
+
+    public OrderForm toOrderForm() {
+        OrderForm orderForm = new OrderForm();
+        orderForm.setOrderId(orderId);
+        orderForm.setUserId(userId);
+        orderForm.setName(name);
+        orderForm.setTelephone(telephone);
+        orderForm.setWorkInformation(workInformation);
+        orderForm.setOrderPrice(orderPrice);
+        orderForm.setOrderTime(new Date(orderTime));
+        orderForm.setServiceDate(serviceDate == null ? null : MyTimeUtils.toDate(LocalDate.ofEpochDay(serviceDate)));
+        return orderForm;
+    }
+
+    public List<BlanketOrder> toDetails() {
+        Date createTime = new Date(orderTime);
+        List<BlanketOrder> details = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            BlanketOrder bo = new BlanketOrder();
+            bo.setName(line.getName());
+            bo.setUnit(line.getUnit());
+            bo.setWeight(line.getWeight());
+            bo.setPrice(line.getPrice());
+            bo.setTotalPrice(line.getTotalPrice());
+            bo.setOrderId(orderId);
+            bo.setCreateTime(createTime);
+            details.add(bo);
+        }
+        return details;
+    }
+}
@@ -0,0 +1,111 @@
+package com.boda.canteen.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 「每个菜单时段仅可提交一次订单」的内存预占守卫
+ * 1. 按用户ID分段加锁（striped），同一用户的并发提交只有一个能预占成功，O(1)判重，无需范围查询orderForm
+ * 2. 支持提前订餐，每个用户可同时预占多个时段；预占新时段时顺带清理RETAIN_DAYS天之前的旧时段，内存占用与用户数成正比
+ * 3. 内存状态只在本节点有效，重启或多节点时由数据库唯一键(userId, serviceDate)兜底
+ * 时段ID取该时段供餐日期（即时段结束时orderDeadline所在日期）的epochDay
+ */
+@Slf4j
+@Component
+public class OrderWindowGuard {
+
+    private static final int STRIPES = 64;
+
+    // 早于新预占时段该天数以上的旧时段视为已过期
+    private static final long RETAIN_DAYS = 31;
+
+    // 每段一把锁 + 一个独立的Map：key=用户ID，value=已预占的时段ID集合
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<Long, Set<Long>>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public OrderWindowGuard() {
+        segments = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+            segments[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * 尝试为用户预占指定时段
+     * @return true=预占成功；false=该用户在此时段已有订单（或正在提交）
+     */
+    public boolean tryReserve(Long userId, long windowId) {
+        int idx = stripe(userId);
+        synchronized (locks[idx]) {
+            Set<Long> reserved = segments[idx].computeIfAbsent(userId, k -> new HashSet<>(4));
+            if (reserved.contains(windowId)) {
+                return false;
+            }
+            reserved.removeIf(id -> id < windowId - RETAIN_DAYS);
+            reserved.add(windowId);
+            return true;
+        }
+    }
+
+    /**
+     * 释放预占（仅释放该时段，不影响用户在其他时段的预占）
+     */
+    public void release(Long userId, long windowId) {
+        int idx = stripe(userId);
+        synchronized (locks[idx]) {
+            Set<Long> reserved = segments[idx].get(userId);
+            if (reserved != null && reserved.remove(windowId) && reserved.isEmpty()) {
+                segments[idx].remove(userId);
+            }
+        }
+    }
+
+    /**
+     * 当前事务回滚时自动释放预占（提交订单失败后允许用户重试）
+     */
+    public void releaseOnRollback(Long userId, long windowId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(userId, windowId);
+                    log.info("用户{}时段{}的订单事务未提交，已释放预占", userId, windowId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 当前事务提交后释放预占（取消订单成功后允许用户重新提交）
+     */
+    public void releaseAfterCommit(Long userId, long windowId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(userId, windowId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(userId, windowId);
+            }
+        });
+    }
+
+    private int stripe(Long userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return h & (STRIPES - 1);
+    }
+}
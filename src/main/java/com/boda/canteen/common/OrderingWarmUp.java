@@ -0,0 +1,172 @@
+package com.boda.canteen.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.boda.canteen.entity.*;
+import com.boda.canteen.security.service.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 点餐高峰前预热：夜间空闲后首批请求要经历JIT冷启动、MyBatis语句缓存与数据库缓冲池未命中，
+ * 在订餐截止前（及应用启动后）主动执行一遍点餐相关的读写路径
+ * 1. 菜单：计算当前菜单时段，加载当前/下一供餐日的菜单快照
+ * 2. 用户：加载近期下过单的员工记录，并走一遍登录时的按用户名查询
+ * 3. 加购与提交：在事务中按提交接口的顺序执行写购物车、查购物车、写订单、批量写明细、清购物车，最后回滚
+ * 连接池不在此预热：spring.datasource.hikari.minimum-idle与maximum-pool-size一致，空闲时不收缩
+ * 每次预热的耗时与覆盖情况保存在lastReport中，可通过/monitor/warmUp查看
+ */
+@Slf4j
+@Component
+public class OrderingWarmUp {
+
+    // 演练数据使用不存在的用户与供餐日期，回滚前也不会与真实订单的唯一键冲突
+    private static final long DRY_RUN_USER_ID = -1L;
+    private static final LocalDate DRY_RUN_SERVICE_DATE = LocalDate.of(9999, 12, 31);
+
+    @Value("${canteen.warm-up.active-user-days:30}")
+    private int activeUserDays;
+
+    @Value("${canteen.warm-up.dry-run-rounds:20}")
+    private int dryRunRounds;
+
+    @Autowired
+    private MenuWindow menuWindow;
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    @Autowired
+    private MyUserService myUserService;
+
+    @Autowired
+    private MyUserDetailsService myUserDetailsService;
+
+    @Autowired
+    private ShopCartService shopCartService;
+
+    @Autowired
+    private OrderFormService orderFormService;
+
+    @Autowired
+    private BlanketOrderService blanketOrderService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile Map<String, Object> lastReport;
+
+    /**
+     * 执行一次预热，返回本次报告（单步失败不影响其余步骤）
+     */
+    public synchronized Map<String, Object> run() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        long begin = System.currentTimeMillis();
+        report.put("startTime", new Date(begin));
+
+        step("menu", report, errors, () -> warmMenus(report));
+        step("user", report, errors, () -> warmUsers(report));
+        step("dryRun", report, errors, () -> dryRun(report));
+
+        report.put("durationMs", System.currentTimeMillis() - begin);
+        report.put("errors", errors);
+        lastReport = report;
+        log.info("点餐预热完成：{}", report);
+        return report;
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    private void step(String name, Map<String, Object> report, List<String> errors, Runnable action) {
+        long start = System.currentTimeMillis();
+        try {
+            action.run();
+        } catch (Exception e) {
+            errors.add(name + "：" + e.getMessage());
+            log.warn("点餐预热步骤{}失败", name, e);
+        }
+        report.put(name + "Ms", System.currentTimeMillis() - start);
+    }
+
+    private void warmMenus(Map<String, Object> report) {
+        MenuWindow.Snapshot window = menuWindow.reload();
+        List<Menu> current = menuSnapshotCache.get(window.getCurrentServiceDate());
+        List<Menu> next = menuSnapshotCache.get(window.getNextServiceDate());
+        report.put("serviceDate", window.getCurrentServiceDate().toString());
+        report.put("currentMenus", current.size());
+        report.put("menusLoaded", current.size() + next.size());
+    }
+
+    private void warmUsers(Map<String, Object> report) {
+        String since = MyTimeUtils.getToday().minusDays(activeUserDays).toString();
+        List<MyUser> users = myUserService.list(new LambdaQueryWrapper<MyUser>()
+                .inSql(MyUser::getUserId, "SELECT DISTINCT userId FROM orderForm WHERE serviceDate >= '" + since + "'"));
+        report.put("activeUsers", users.size());
+        if (!users.isEmpty() && users.get(0).getUsername() != null) {
+            myUserDetailsService.loadUserByUsername(users.get(0).getUsername());
+        }
+    }
+
+    private void dryRun(Map<String, Object> report) {
+        Date serviceDate = MyTimeUtils.toDate(DRY_RUN_SERVICE_DATE);
+        int rounds = 0;
+        for (int i = 0; i < dryRunRounds; i++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                Date now = MyTimeUtils.now();
+                ShopCart cart = new ShopCart();
+                cart.setName("预热");
+                cart.setUnit("份");
+                cart.setWeight(1);
+                cart.setPrice(0L);
+                cart.setTotalPrice(0L);
+                cart.setUserId(DRY_RUN_USER_ID);
+                cart.setServiceDate(serviceDate);
+                shopCartService.save(cart);
+
+                List<ShopCart> carts = shopCartService.list(new LambdaQueryWrapper<ShopCart>()
+                        .eq(ShopCart::getUserId, DRY_RUN_USER_ID)
+                        .eq(ShopCart::getServiceDate, DRY_RUN_SERVICE_DATE));
+
+                OrderForm orderForm = new OrderForm();
+                orderForm.setOrderId(idGenerator.nextId());
+                orderForm.setUserId(DRY_RUN_USER_ID);
+                orderForm.setOrderTime(now);
+                orderForm.setOrderPrice(0L);
+                orderForm.setServiceDate(serviceDate);
+                orderFormService.save(orderForm);
+
+                List<BlanketOrder> details = new ArrayList<>(carts.size());
+                for (ShopCart c : carts) {
+                    BlanketOrder detail = new BlanketOrder();
+                    detail.setName(c.getName());
+                    detail.setUnit(c.getUnit());
+                    detail.setWeight(c.getWeight());
+                    detail.setPrice(c.getPrice());
+                    detail.setTotalPrice(c.getTotalPrice());
+                    detail.setOrderId(orderForm.getOrderId());
+                    detail.setCreateTime(now);
+                    details.add(detail);
+                }
+                blanketOrderService.insertBatch(details);
+
+                shopCartService.remove(new LambdaQueryWrapper<ShopCart>()
+                        .eq(ShopCart::getUserId, DRY_RUN_USER_ID)
+                        .eq(ShopCart::getServiceDate, DRY_RUN_SERVICE_DATE));
+            });
+            rounds++;
+        }
+        report.put("dryRunRounds", rounds);
+    }
+}
@@ -0,0 +1,15 @@
+package com.boda.canteen.common;
+
+import cn.hutool.core.util.RandomUtil;
+
+/**
+ * 随机ID生成器（原订单号生成方式，仅为兼容和基准对比保留）
+ * 存在碰撞风险，且随机主键会打散InnoDB聚簇索引的插入位置
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public long nextId() {
+        return RandomUtil.randomLong(100000L, 999999999999L);
+    }
+}
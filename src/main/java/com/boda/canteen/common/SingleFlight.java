@@ -0,0 +1,81 @@
+package com.boda.canteen.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同读请求合并（single-flight）：同一key同一时刻只有一个调用真正执行查询，其余并发调用等待并共享其结果
+ * 1. key须包含全部查询参数（及菜单时段、数据版本号等决定结果的因素），不同key之间互不等待
+ * 2. 只合并「正在执行」的调用，查询结束即移除，不缓存结果；查询抛出的异常同样传给所有等待者
+ * 3. 共享的结果对象被多个请求同时使用，调用方不得修改
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 执行（或等待正在执行的）key对应的查询
+     */
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // 计数时已挂到正在执行的查询上，必定共享其结果
+            coalesced.increment();
+            return await(running);
+        }
+        executions.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 合并指标：calls=调用次数，executions=实际查询次数，coalesced=共享结果的调用次数，
+     * coalescingRatio=coalesced/calls（越高说明合并掉的重复查询越多）
+     */
+    public Map<String, Object> metrics() {
+        long total = calls.sum();
+        long shared = coalesced.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("calls", total);
+        map.put("executions", executions.sum());
+        map.put("coalesced", shared);
+        map.put("coalescingRatio", total == 0 ? 0.0 : (double) shared / total);
+        map.put("inFlight", inFlight.size());
+        return map;
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // 还原执行者抛出的原始异常，等待者与执行者看到的错误一致
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
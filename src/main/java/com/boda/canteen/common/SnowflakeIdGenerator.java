@@ -0,0 +1,50 @@
+package com.boda.canteen.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法ID生成器：41位毫秒时间戳 + 10位节点ID + 12位序列号
+ * 1. 无锁：时间戳与序列号打包在一个AtomicLong中，CAS推进
+ * 2. 单节点单调递增：同一毫秒内序列号用尽时自动借用下一毫秒；时钟回拨时沿用上次的时间戳继续递增
+ * 3. 按时间有序：新ID总是追加在B+树右侧，避免随机主键导致的页分裂
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    // 自定义纪元：2024-01-01 00:00:00 UTC，41位时间戳可用约69年
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeId;
+
+    // 高位：相对纪元的毫秒数；低12位：序列号
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID超出范围[0," + MAX_NODE_ID + "]：" + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            // 新的毫秒：序列号归零；同一毫秒或时钟回拨：在上次基础上+1，序列号溢出时进位到时间戳
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+}
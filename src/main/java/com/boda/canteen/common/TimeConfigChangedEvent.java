@@ -0,0 +1,22 @@
+package com.boda.canteen.common;
+
+import com.boda.canteen.entity.TimeConfig;
+
+/**
+ * 时间配置变更事件（本节点修改或检测到其他节点修改后发布）
+ */
+public class TimeConfigChangedEvent {
+
+    private final TimeConfig config;
+
+    public TimeConfigChangedEvent(TimeConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 变更后的配置（只读快照）
+     */
+    public TimeConfig getConfig() {
+        return config;
+    }
+}
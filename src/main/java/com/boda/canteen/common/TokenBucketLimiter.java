@@ -0,0 +1,70 @@
+package com.boda.canteen.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按key（用户）限流的令牌桶，采用GCRA算法：每个key只保存一个「理论到达时间」(TAT)
+ * 1. 判断与扣减在同一个CAS里完成，无锁、无后台补令牌线程
+ * 2. TAT已落后于当前时间的key等价于满桶，可随时清除而不改变限流结果，借此做惰性淘汰
+ */
+public class TokenBucketLimiter {
+
+    // 每处理多少次请求顺带清理一次满桶key
+    private static final int SWEEP_EVERY = 1024;
+
+    // 每个令牌的间隔（纳秒）
+    private final long emissionIntervalNanos;
+    // 允许的突发容忍量（纳秒）= 间隔 × (桶容量 - 1)
+    private final long burstToleranceNanos;
+
+    private final ConcurrentMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量（允许的瞬时突发请求数）
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("限流参数不合法：rate=" + permitsPerSecond + ", burst=" + burst);
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    }
+
+    /**
+     * 尝试为key获取一个令牌
+     * @return 0=放行；大于0=需要等待的纳秒数
+     */
+    public long tryAcquire(Object key) {
+        long now = System.nanoTime();
+        if (calls.incrementAndGet() % SWEEP_EVERY == 0) {
+            sweep(now);
+        }
+        AtomicLong tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, now);
+            long allowAt = base - burstToleranceNanos;
+            if (now < allowAt) {
+                return allowAt - now;
+            }
+            if (tat.compareAndSet(current, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 清除已回到满桶状态的key
+     */
+    public void sweep(long now) {
+        buckets.entrySet().removeIf(e -> e.getValue().get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.boda.canteen.config;
+
+import com.boda.canteen.common.MyTimeUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+
+/**
+ * 业务时钟配置
+ * 菜单时段、订餐截止、定时任务业务逻辑等读取的「当前时间」统一来自Clock Bean（经MyTimeUtils），
+ * 测试中可声明一个@Primary的Clock替换为模拟时钟，在不等待真实时间的情况下验证截止时刻、配餐开始、跨月等场景
+ * 耗时统计、限流、租约续期、订单号生成等与业务日期无关的计时仍使用系统时间
+ */
+@Configuration
+public class ClockConfig {
+
+    private final ObjectProvider<Clock> clockProvider;
+
+    public ClockConfig(ObjectProvider<Clock> clockProvider) {
+        this.clockProvider = clockProvider;
+    }
+
+    // 静态工厂方法：bindClock()在本配置类初始化期间获取Clock，避免循环创建
+    @Bean
+    public static Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
+    @PostConstruct
+    public void bindClock() {
+        MyTimeUtils.setClock(clockProvider.getIfAvailable());
+    }
+}
@@ -0,0 +1,42 @@
+package com.boda.canteen.config;
+
+import com.boda.canteen.common.IdGenerator;
+import com.boda.canteen.common.RandomIdGenerator;
+import com.boda.canteen.common.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 业务ID生成器配置
+ * canteen.id.strategy：snowflake（默认）/ random（旧方式）
+ * canteen.node-id：节点ID（0~1023），多节点部署时每个节点必须不同
+ * canteen.cluster：多节点部署时设为true，此时节点ID仍为默认值0则启动失败（避免各节点生成相同订单号）
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${canteen.id.strategy:snowflake}")
+    private String strategy;
+
+    @Value("${canteen.node-id:0}")
+    private long nodeId;
+
+    @Value("${canteen.cluster:false}")
+    private boolean cluster;
+
+    @Bean
+    public IdGenerator idGenerator() {
+        if ("random".equalsIgnoreCase(strategy)) {
+            log.warn("订单号使用随机生成策略，存在碰撞风险，仅建议用于对比测试");
+            return new RandomIdGenerator();
+        }
+        if (cluster && nodeId == 0) {
+            throw new IllegalStateException("多节点部署（canteen.cluster=true）须为每个节点配置不同的canteen.node-id，不能使用默认值0");
+        }
+        log.info("订单号使用雪花算法生成，节点ID={}", nodeId);
+        return new SnowflakeIdGenerator(nodeId);
+    }
+}
@@ -1,13 +1,22 @@
 package com.boda.canteen.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+/**
+ * 定时任务调度器
+ * spring.threads.virtual.enabled=true 且运行在JDK 21+ 时，每次任务执行使用一个新的虚拟线程；否则使用固定大小的平台线程池
+ */
 @Configuration
 public class SchedulerConfig {
+
     @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(5); // 线程池大小
@@ -16,4 +25,15 @@ public class SchedulerConfig {
         scheduler.setWaitForTasksToCompleteOnShutdown(true);
         return scheduler;
     }
-}
\ No newline at end of file
+
+    @Bean(name = "taskScheduler")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskScheduler virtualThreadTaskScheduler() {
+        SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("dynamic-schedule-");
+        // 停机时等待正在执行的任务完成（与平台线程池的60秒保持一致）
+        scheduler.setTaskTerminationTimeout(60_000L);
+        return scheduler;
+    }
+}
@@ -1,6 +1,7 @@
 package com.boda.canteen.config;
 
 import com.boda.canteen.common.JacksonObjectMapper;
+import com.boda.canteen.interception.OrderAdmissionInterceptor;
 import com.boda.canteen.interception.StaffOrderInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -20,6 +21,9 @@ public class WebMvcConfig extends WebMvcConfigurationSupport {
     @Autowired
     private StaffOrderInterceptor staffOrderInterceptor; // 新增
 
+    @Autowired
+    private OrderAdmissionInterceptor orderAdmissionInterceptor;
+
     /**
      * 配置视图控制
      */
@@ -61,8 +65,11 @@ public class WebMvcConfig extends WebMvcConfigurationSupport {
      */
     @Override
     protected void addInterceptors(InterceptorRegistry registry) {
+        // 准入控制放在最前面：限流/并发超限的请求不再查询时间配置
+        registry.addInterceptor(orderAdmissionInterceptor)
+                .addPathPatterns("/order/submit", "/order/group", "/shopCart/add");
         // 使用注入的实例，而非 new StaffOrderInterceptor()
         registry.addInterceptor(staffOrderInterceptor)
-                .addPathPatterns("/order/submit");
+                .addPathPatterns("/order/submit", "/order/group");
     }
 }
\ No newline at end of file
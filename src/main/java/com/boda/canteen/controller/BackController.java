@@ -169,9 +169,9 @@ public class BackController {
      * 跳转历史详情页面
      */
     @PreAuthorize("hasRole('manager')")
-    @GetMapping("/back/toHistoryDetail/{menuIds}")
-    public String toHistoryDetail(@PathVariable String menuIds, HttpServletRequest request){
-        request.getSession().setAttribute("hisMenuIds", menuIds);
+    @GetMapping("/back/toHistoryDetail/{hisId}")
+    public String toHistoryDetail(@PathVariable Long hisId, HttpServletRequest request){
+        request.getSession().setAttribute("hisId", hisId);
         return "menu/details";
     }
 
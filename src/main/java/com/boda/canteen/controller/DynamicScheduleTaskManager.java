@@ -1,6 +1,10 @@
 package com.boda.canteen.controller;
 
+import com.boda.canteen.common.ClusterJobRunner;
+import com.boda.canteen.common.DataVersions;
 import com.boda.canteen.common.MyTimeUtils;
+import com.boda.canteen.common.OrderingWarmUp;
+import com.boda.canteen.common.TimeConfigChangedEvent;
 import com.boda.canteen.entity.*;
 import com.boda.canteen.security.service.*;
 import cn.hutool.core.date.DateUtil;
@@ -9,18 +13,26 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 动态定时任务管理器（支持Cron热更新）
@@ -30,8 +42,8 @@ import java.util.concurrent.ScheduledFuture;
 @EnableScheduling // 开启定时任务核心功能
 public class DynamicScheduleTaskManager {
 
-    // 保存任务句柄：key=任务名称，value=任务未来执行句柄（用于取消旧任务）
-    private final Map<String, ScheduledFuture<?>> taskMap = new ConcurrentHashMap<>();
+    // 任务登记表：key=任务名称，value=任务当前Cron、执行句柄及运行记录
+    private final Map<String, ScheduledTask> taskMap = new ConcurrentHashMap<>();
 
     @Autowired
     private TaskScheduler taskScheduler; // Spring默认的任务调度器
@@ -39,22 +51,52 @@ public class DynamicScheduleTaskManager {
     @Autowired
     private TimeConfigService timeConfigService;
 
+    @Autowired
+    private ClusterJobRunner clusterJobRunner;
+
     // 业务服务依赖（与原MyScheduleTask一致）
     @Autowired
     private SaleService saleService;
     @Autowired
-    private BlanketOrderService blanketOrderService;
+    private SaleDailyService saleDailyService;
     @Autowired
     private ShopCartService shopCartService;
     @Autowired
-    private MenuService menuService;
-    @Autowired
     private HistoryService historyService;
 
     // ========== 任务名称常量 ==========
     private static final String TASK_CLEAR_SHOP_CART = "clearShopCart"; // 清空购物车任务
     private static final String TASK_ADD_HISTORY_MENU = "addHistoryMenu"; // 统计菜单任务
+    private static final String TASK_CLOSE_SALE_DAILY = "closeSaleDaily"; // 销售日结任务
     private static final String TASK_ADD_MONTH_SALE = "addMonthSale";     // 月度销售任务（固定Cron）
+    private static final String TASK_WARM_UP = "warmUp";                  // 点餐预热任务（每个节点各自执行）
+
+    // 不经集群租约、每个节点都要执行的任务
+    private static final Set<String> LOCAL_TASKS = Set.of(TASK_WARM_UP);
+
+    @Value("${canteen.cart-purge.batch-size:500}")
+    private int cartPurgeBatchSize;
+
+    @Value("${canteen.cart-purge.pause-ms:50}")
+    private long cartPurgePauseMs;
+
+    @Value("${canteen.warm-up.enabled:true}")
+    private boolean warmUpEnabled;
+
+    @Value("${canteen.warm-up.minutes-before-deadline:15}")
+    private int warmUpMinutesBeforeDeadline;
+
+    @Value("${canteen.warm-up.on-startup:true}")
+    private boolean warmUpOnStartup;
+
+    @Autowired
+    private OrderingWarmUp orderingWarmUp;
+
+    @Autowired
+    private HistoryDishService historyDishService;
+
+    @Autowired
+    private DataVersions dataVersions;
 
     // ========== 初始化：应用启动时注册所有任务 ==========
     @PostConstruct
@@ -67,121 +109,243 @@ public class DynamicScheduleTaskManager {
     }
 
     // ========== 核心方法：刷新动态任务（热更新入口） ==========
+    /**
+     * 按当前时间配置刷新动态任务，Cron未变化的任务保持原调度不动
+     */
     public void refreshDynamicTasks() {
+        String clearCron = timeConfigService.getOrderDeadlineCron();
+        String historyCron = timeConfigService.getMealStartTimeCron();
         // 1. 刷新「清空购物车」任务
-        refreshSingleDynamicTask(TASK_CLEAR_SHOP_CART, timeConfigService.getOrderDeadlineCron(), this::clearShopCart);
+        boolean clearChanged = refreshSingleDynamicTask(TASK_CLEAR_SHOP_CART, clearCron, this::clearShopCart);
         // 2. 刷新「统计菜单」任务
-        refreshSingleDynamicTask(TASK_ADD_HISTORY_MENU, timeConfigService.getMealStartTimeCron(), this::addHistoryMenu);
-        log.info("动态定时任务已刷新，最新Cron：清空购物车={}, 统计菜单={}",
-                timeConfigService.getOrderDeadlineCron(),
-                timeConfigService.getMealStartTimeCron());
+        boolean historyChanged = refreshSingleDynamicTask(TASK_ADD_HISTORY_MENU, historyCron, this::addHistoryMenu);
+        refreshSingleDynamicTask(TASK_CLOSE_SALE_DAILY, historyCron, this::closeSaleDaily);
+        if (clearChanged || historyChanged) {
+            log.info("动态定时任务已刷新，最新Cron：清空购物车={}, 统计菜单={}", clearCron, historyCron);
+        }
+        // 3. 刷新「点餐预热」任务（orderDeadline前N分钟）
+        if (warmUpEnabled) {
+            refreshSingleDynamicTask(TASK_WARM_UP, warmUpCron(), orderingWarmUp::run);
+        }
+    }
+
+    /**
+     * 应用启动完成后立即预热一次（异步执行，不阻塞启动）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        ScheduledTask task = taskMap.get(TASK_WARM_UP);
+        if (warmUpEnabled && warmUpOnStartup && task != null) {
+            taskScheduler.schedule(() -> runTask(task, orderingWarmUp::run), Instant.now());
+        }
+    }
+
+    private String warmUpCron() {
+        TimeConfig config = timeConfigService.getCurrentConfig();
+        String deadline = config == null || config.getOrderDeadline() == null ? "09:00:00" : config.getOrderDeadline();
+        LocalTime time = LocalTime.parse(deadline.trim(), MyTimeUtils.LENIENT_TIME_FORMATTER)
+                .minusMinutes(warmUpMinutesBeforeDeadline);
+        return String.format("%d %d %d * * ?", time.getSecond(), time.getMinute(), time.getHour());
     }
 
-    // ========== 工具方法：刷新单个动态任务 ==========
-    private void refreshSingleDynamicTask(String taskName, String newCron, Runnable taskRunnable) {
+    /**
+     * 时间配置变化（本节点修改，或版本检查发现其他节点修改）时重新计算Cron
+     */
+    @EventListener
+    public void onTimeConfigChanged(TimeConfigChangedEvent event) {
+        refreshDynamicTasks();
+    }
+
+    /**
+     * 各任务的Cron、下次执行时间、本节点上次执行时间及耗时
+     */
+    public List<Map<String, Object>> taskStatus() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ScheduledTask task : taskMap.values()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", task.name);
+            map.put("cron", task.cron);
+            LocalDateTime next = CronExpression.parse(task.cron).next(now);
+            map.put("nextFireTime", next == null ? null : Date.from(next.atZone(ZoneId.systemDefault()).toInstant()));
+            map.put("lastStartTime", task.lastStartTime == 0 ? null : new Date(task.lastStartTime));
+            map.put("lastDurationMs", task.lastStartTime == 0 ? null : task.lastDurationMs);
+            map.put("lastError", task.lastError);
+            map.put("runCount", task.runCount.get());
+            list.add(map);
+        }
+        list.sort(Comparator.comparing(m -> (String) m.get("name")));
+        return list;
+    }
+
+    // ========== 工具方法：刷新单个动态任务，返回是否重新注册 ==========
+    private synchronized boolean refreshSingleDynamicTask(String taskName, String newCron, Runnable taskRunnable) {
         if (StrUtil.isBlank(newCron)) {
             log.error("任务{}的Cron表达式为空，跳过刷新", taskName);
-            return;
+            return false;
         }
-
-        // 步骤1：取消旧任务（如果存在）
-        ScheduledFuture<?> oldFuture = taskMap.remove(taskName);
-        if (oldFuture != null) {
-            oldFuture.cancel(false); // false：不中断正在执行的任务
-            log.info("旧任务{}已取消", taskName);
+        ScheduledTask old = taskMap.get(taskName);
+        if (old != null && old.cron.equals(newCron) && !old.future.isCancelled()) {
+            // Cron未变化：不取消重建，避免刷新恰好落在触发时刻附近时丢失一次执行
+            return false;
         }
 
-        // 步骤2：注册新任务
+        // 注册新任务，成功后再取消旧任务（新Cron非法时保留旧任务）
         try {
-            CronTrigger trigger = new CronTrigger(newCron);
-            ScheduledFuture<?> newFuture = taskScheduler.schedule(taskRunnable, trigger);
-            taskMap.put(taskName, newFuture);
-            log.info("新任务{}注册成功，Cron={}", taskName, newCron);
+            schedule(taskName, newCron, taskRunnable, old);
+            log.info("任务{}注册成功，Cron={}", taskName, newCron);
+            return true;
         } catch (Exception e) {
             log.error("任务{}注册失败，Cron={}", taskName, newCron, e);
+            return false;
         }
     }
 
     // ========== 工具方法：注册固定Cron任务 ==========
-    private void registerFixedCronTask(String taskName, String cron, Runnable taskRunnable) {
-        // 先取消旧任务（防止重复注册）
-        ScheduledFuture<?> oldFuture = taskMap.remove(taskName);
-        if (oldFuture != null) {
-            oldFuture.cancel(false);
-        }
-        // 注册新任务
-        CronTrigger trigger = new CronTrigger(cron);
-        ScheduledFuture<?> future = taskScheduler.schedule(taskRunnable, trigger);
-        taskMap.put(taskName, future);
+    private synchronized void registerFixedCronTask(String taskName, String cron, Runnable taskRunnable) {
+        schedule(taskName, cron, taskRunnable, taskMap.get(taskName));
         log.info("固定Cron任务{}注册成功，Cron={}", taskName, cron);
     }
 
+    private void schedule(String taskName, String cron, Runnable taskRunnable, ScheduledTask old) {
+        ScheduledTask task = new ScheduledTask(taskName, cron, old);
+        task.future = taskScheduler.schedule(() -> runTask(task, taskRunnable), new CronTrigger(cron));
+        taskMap.put(taskName, task);
+        if (old != null) {
+            old.future.cancel(false); // false：不中断正在执行的任务
+            log.info("旧任务{}已取消，原Cron={}", taskName, old.cron);
+        }
+    }
+
+    /**
+     * 多节点部署时经租约保证同一触发时刻只有一个节点执行（LOCAL_TASKS除外）
+     */
+    private void runTask(ScheduledTask task, Runnable taskRunnable) {
+        if (LOCAL_TASKS.contains(task.name)) {
+            try {
+                task.run(taskRunnable);
+            } catch (RuntimeException e) {
+                log.error("定时任务{}执行失败", task.name, e);
+            }
+            return;
+        }
+        clusterJobRunner.runOnce(task.name, fireTime(task.cron), () -> task.run(taskRunnable));
+    }
+
+    /**
+     * 本次触发的计划时间：调度器按Cron准点触发（可能提前几毫秒或稍有延迟），
+     * 取一分钟前之后的第一个Cron时间点，各节点得到相同的值
+     */
+    private static Date fireTime(String cron) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        LocalDateTime fire = CronExpression.parse(cron).next(now.minusMinutes(1));
+        if (fire == null || fire.isAfter(now.plusSeconds(1))) {
+            fire = now;
+        }
+        return Date.from(fire.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * 登记表中的一个任务：Cron变化重新注册时沿用上一次的运行记录
+     */
+    private static final class ScheduledTask {
+        private final String name;
+        private final String cron;
+        private final AtomicLong runCount;
+        private volatile ScheduledFuture<?> future;
+        private volatile long lastStartTime;
+        private volatile long lastDurationMs;
+        private volatile String lastError;
+
+        private ScheduledTask(String name, String cron, ScheduledTask previous) {
+            this.name = name;
+            this.cron = cron;
+            this.runCount = previous == null ? new AtomicLong() : previous.runCount;
+            if (previous != null) {
+                this.lastStartTime = previous.lastStartTime;
+                this.lastDurationMs = previous.lastDurationMs;
+                this.lastError = previous.lastError;
+            }
+        }
+
+        private void run(Runnable taskRunnable) {
+            long start = System.currentTimeMillis();
+            lastStartTime = start;
+            try {
+                taskRunnable.run();
+                lastError = null;
+            } catch (RuntimeException e) {
+                // 记录后继续抛出，由ClusterJobRunner写入执行记录
+                lastError = e.getMessage();
+                throw e;
+            } finally {
+                lastDurationMs = System.currentTimeMillis() - start;
+                runCount.incrementAndGet();
+            }
+        }
+    }
+
     // ========== 业务逻辑方法（与原MyScheduleTask完全一致） ==========
-    /** 月度销售统计（固定Cron：每月1号0点） */
+    /** 月度销售统计（固定Cron：每月1号0点），按供餐日期汇总上月的日销售 */
     public void addMonthSale() {
         Sale sale = new Sale();
-        Date currDate = DateUtil.lastMonth();
+        Date currDate = DateUtil.offsetMonth(MyTimeUtils.now(), -1);
         String month = DateUtil.formatDate(currDate).substring(0, 7);
         sale.setMonth(month);
-
-        Long totalPrice = 0L;
-        LambdaQueryWrapper<BlanketOrder> queryWrapper = new LambdaQueryWrapper<>();
-        if (StrUtil.isNotEmpty(month)) {
-            month += "-01";
-            Date begin = MyTimeUtils.getMonthOfBeginTime(month);
-            Date end = MyTimeUtils.getMonthOfEndTime(month);
-            queryWrapper.between(BlanketOrder::getCreateTime, begin, end);
-        }
-        List<BlanketOrder> list = blanketOrderService.list(queryWrapper);
-        for (BlanketOrder bo : list) {
-            totalPrice += bo.getTotalPrice();
-        }
-        sale.setTotalPrice(totalPrice);
+        sale.setTotalPrice(saleDailyService.sumTotal(MyTimeUtils.getMonthFirstDay(month), MyTimeUtils.getMonthLastDay(month)));
 
         boolean res = saleService.save(sale);
         log.info("上个月的销售订单自动生成{}", res ? "成功" : "失败");
     }
 
-    /** 清空购物车（动态Cron：从数据库读取） */
+    /**
+     * 销售日结（动态Cron：与统计菜单同在配餐开始时），本日订单已截止不可再修改，
+     * 汇总本日（及之前遗漏日结的供餐日）的销售，月度统计与销售明细只读汇总行
+     */
+    public void closeSaleDaily() {
+        LocalDate today = MyTimeUtils.getToday();
+        int days = saleDailyService.closeThrough(today);
+        log.info("销售日结完成，截至供餐日{}，本次日结{}天", today, days);
+    }
+
+    /**
+     * 清空购物车（动态Cron：从数据库读取），仅清除已截止供餐日的购物车，提前订餐的购物车保留
+     * 已截止的购物车在查询中按供餐日期自动失效，这里只做物理回收：按主键区间分批删除，批次间停顿，不与最后一批提交争锁
+     */
     public void clearShopCart() {
-        LambdaQueryWrapper<ShopCart> queryWrapper = new LambdaQueryWrapper<>();
-        shopCartService.remove(queryWrapper);
-        log.info("当日订餐截止，自动清除所有用户购物车");
+        LocalDate today = MyTimeUtils.getToday();
+        long start = System.currentTimeMillis();
+        long deleted = shopCartService.purgeExpired(today, cartPurgeBatchSize, cartPurgePauseMs);
+        log.info("当日订餐截止，分批清除供餐日期截至{}的购物车{}条，耗时{}ms", today, deleted, System.currentTimeMillis() - start);
     }
 
-    /** 统计当日菜单（动态Cron：从数据库读取） */
+    /**
+     * 统计当日菜单（动态Cron：从数据库读取），在配餐开始时把本日供应的菜品整体快照到historyDish
+     * 同一供餐日重复触发（如租约接管）只补充尚未快照的菜品，不重复生成历史记录
+     */
     public void addHistoryMenu() {
-        History history = new History();
-        Date todayBegin = MyTimeUtils.getDayOfBeginTime();
-        Date todayEnd = MyTimeUtils.getDayOfEndTime();
-        String timeRange = DateUtil.formatDate(todayBegin) + "~" + DateUtil.formatDate(todayEnd);
-        history.setTimeRange(timeRange);
-
-        StringBuilder sb = new StringBuilder();
-        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.between(Menu::getCreateTime, todayBegin, todayEnd);
-        List<Menu> menuList = menuService.list(queryWrapper);
-        for (Menu m : menuList) {
-            sb.append(m.getMenuId()).append(",");
-        }
-        if (sb.length() > 0) {
-            history.setMenuIds(sb.substring(0, sb.length() - 1));
-        } else {
-            history.setMenuIds("");
-        }
+        LocalDate today = MyTimeUtils.getToday();
+        Date serviceDate = MyTimeUtils.toDate(today);
+        String timeRange = DateUtil.formatDate(serviceDate) + "~" + DateUtil.formatDate(serviceDate);
 
-        historyService.save(history);
-        log.info("自动收集当日历史菜单：{}", timeRange);
+        long exists = historyService.count(new LambdaQueryWrapper<History>().eq(History::getServiceDate, today));
+        if (exists == 0) {
+            History history = new History();
+            history.setTimeRange(timeRange);
+            history.setServiceDate(serviceDate);
+            historyService.save(history);
+            dataVersions.bump(DataVersions.HISTORY);
+        }
+        int dishes = historyDishService.snapshot(today, MyTimeUtils.now());
+        log.info("自动收集当日历史菜单：{}，快照菜品{}个", timeRange, dishes);
     }
-    // 新增：每分钟轮询一次配置，检测变化后刷新
+
+    /**
+     * 兜底：每分钟触发一次配置版本检查（无请求访问时也能发现其他节点的修改），
+     * 版本变化时由TimeConfigChangedEvent驱动重新调度
+     */
     @Scheduled(fixedRate = 60 * 1000) // 60秒执行一次
     public void autoRefreshTask() {
-        // 1. 获取当前数据库的Cron
-        String newClearCron = timeConfigService.getOrderDeadlineCron();
-        String newHistoryCron = timeConfigService.getMealStartTimeCron();
-
-        // 2. 获取当前任务的Cron（需扩展taskMap，保存Cron与任务的映射）
-        // （简化版：直接调用refreshDynamicTasks，即使无变化也刷新，性能影响可忽略）
-        refreshDynamicTasks();
+        timeConfigService.getCurrentConfig();
     }
 }
\ No newline at end of file
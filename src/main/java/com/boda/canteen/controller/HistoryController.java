@@ -3,11 +3,12 @@ package com.boda.canteen.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.common.DataVersions;
 import com.boda.canteen.common.R;
 import com.boda.canteen.entity.History;
-import com.boda.canteen.entity.Menu;
+import com.boda.canteen.entity.HistoryDish;
+import com.boda.canteen.security.service.HistoryDishService;
 import com.boda.canteen.security.service.HistoryService;
-import com.boda.canteen.security.service.MenuService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,10 +16,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Arrays;
-
 @Slf4j
 @RestController
 @RequestMapping("/history")
@@ -28,7 +28,10 @@ public class HistoryController {
     private HistoryService historyService;
 
     @Autowired
-    private MenuService menuService;
+    private HistoryDishService historyDishService;
+
+    @Autowired
+    private DataVersions dataVersions;
 
     /**
      *  历史菜单分页接口（优化：支持按天模糊查询）
@@ -38,7 +41,11 @@ public class HistoryController {
     public R<Page<History>> getAllMenu(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
-            @RequestParam(required = false) String timeRange) {
+            @RequestParam(required = false) String timeRange,
+            ServletWebRequest webRequest) {
+        if (dataVersions.checkNotModified(webRequest, dataVersions.etag("page", DataVersions.HISTORY))) {
+            return null;
+        }
 
         Page<History> pageInfo = new Page<>(page, limit);
         LambdaQueryWrapper<History> queryWrapper = new LambdaQueryWrapper<>();
@@ -54,26 +61,22 @@ public class HistoryController {
     }
 
     /**
-     * 详情接口（无需修改，兼容按天存储的menuIds）
+     * 详情接口：读取该历史记录供餐日的菜品快照（与menu表中的菜品是否还存在无关）
      */
     @PreAuthorize("hasRole('manager')")
     @GetMapping("/details")
-    public R<Page<Menu>> details(
+    public R<Page<HistoryDish>> details(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             HttpServletRequest request) {
 
-        String menuIds = (String) request.getSession().getAttribute("hisMenuIds");
-        if (StringUtils.isEmpty(menuIds)) {
+        Long hisId = (Long) request.getSession().getAttribute("hisId");
+        if (hisId == null) {
             return R.fail("未选择历史菜单记录");
         }
 
-        Page<Menu> pageInfo = new Page<>(page, limit);
-        String[] menuArr = menuIds.split(",");
-        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.in(Menu::getMenuId, Arrays.stream(menuArr).toArray());
-
-        menuService.page(pageInfo, queryWrapper);
+        Page<HistoryDish> pageInfo = new Page<>(page, limit);
+        historyDishService.pageByHistory(hisId, pageInfo);
         return R.success(pageInfo);
     }
-}
\ No newline at end of file
+}
@@ -3,26 +3,32 @@ package com.boda.canteen.controller;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import org.springframework.util.StringUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.common.DataVersions;
+import com.boda.canteen.common.MenuSnapshotCache;
+import com.boda.canteen.common.MenuWindow;
 import com.boda.canteen.common.MyTimeUtils;
 import com.boda.canteen.common.R;
+import com.boda.canteen.entity.HistoryDish;
 import com.boda.canteen.entity.Menu;
 import com.boda.canteen.entity.Recipe;
-import com.boda.canteen.entity.TimeConfig;
 import com.boda.canteen.exception.CustomException;
+import com.boda.canteen.security.service.HistoryDishService;
 import com.boda.canteen.security.service.MenuService;
 import com.boda.canteen.security.service.RecipeService;
-import com.boda.canteen.security.service.TimeConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -36,7 +42,16 @@ public class MenuController {
     private RecipeService recipeService;
 
     @Autowired
-    private TimeConfigService timeConfigService; // 注入时间配置服务
+    private MenuWindow menuWindow; // 菜单时段快照
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache; // 菜单快照缓存
+
+    @Autowired
+    private HistoryDishService historyDishService;
+
+    @Autowired
+    private DataVersions dataVersions; // 数据版本号（条件GET）
 
     /**
      * 查询某个菜单接口
@@ -46,7 +61,7 @@ public class MenuController {
         if (menuId == null || menuId <= 0) {
             return R.fail("菜单ID不合法");
         }
-        Menu menu = menuService.getById(menuId);
+        Menu menu = menuSnapshotCache.getMenu(menuId);
         return menu != null ? R.success(menu) : R.fail("获取菜品信息失败");
     }
 
@@ -57,39 +72,15 @@ public class MenuController {
     public R<Page<Menu>> getTodayMenu(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
-            @RequestParam(required = false) String name) {
-        // 1. 获取数据库时间配置
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String mealStartTime = timeConfig.getMealStartTime(); // 配餐开始时间（HH:mm:ss）
-        String orderDeadline = timeConfig.getOrderDeadline(); // 订餐截止时间（HH:mm:ss）
-
-        // 2. 动态计算今日菜单时间范围
-        Date startTime, endTime;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadline)) {
-            // 当前时间已超过本日orderDeadline → 今日菜单：本日mealStartTime ~ 明日orderDeadline
-            baseDate = MyTimeUtils.getToday();
-            startTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTime); // 本日mealStartTime
-            endTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline); // 明日orderDeadline
-        } else {
-            // 当前时间未超过本日orderDeadline → 今日菜单：昨日mealStartTime ~ 本日orderDeadline
-            baseDate = MyTimeUtils.getYesterday();
-            startTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTime); // 昨日mealStartTime
-            endTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline); // 本日orderDeadline
+            @RequestParam(required = false) String name,
+            ServletWebRequest webRequest) {
+        LocalDate serviceDate = menuWindow.current().getCurrentServiceDate();
+        // 供餐日期与菜单版本均未变化时直接返回304
+        if (dataVersions.checkNotModified(webRequest, dataVersions.etag(serviceDate.toString(), DataVersions.MENU))) {
+            return null;
         }
-
-        log.info("今日菜单时间范围：{} ~ {}",
-                DateUtil.formatDateTime(startTime),
-                DateUtil.formatDateTime(endTime));
-
-        // 3. 分页查询
-        Page<Menu> pageInfo = new Page<>(page, limit);
-        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(StringUtils.hasText(name), Menu::getName, name)
-                .between(Menu::getCreateTime, startTime, endTime)
-                .orderByDesc(Menu::getCreateTime);
-
-        menuService.page(pageInfo, queryWrapper);
+        // 今日菜单的供餐日期取自菜单时段快照，菜单取自菜单快照缓存（内存分页）
+        Page<Menu> pageInfo = menuSnapshotCache.page(serviceDate, page, limit, name);
         return R.success(pageInfo);
     }
 
@@ -100,48 +91,56 @@ public class MenuController {
     public R<Page<Menu>> getTomorrowMenu(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
-            @RequestParam(required = false) String name) {
-        // 1. 获取数据库时间配置
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String mealStartTime = timeConfig.getMealStartTime(); // 配餐开始时间（HH:mm:ss）
-        String orderDeadline = timeConfig.getOrderDeadline(); // 订餐截止时间（HH:mm:ss）
-
-        // 2. 动态计算明日菜单时间范围
-        Date startTime, endTime;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadline)) {
-            // 当前时间已超过本日orderDeadline → 明日菜单：明日mealStartTime ~ 后日orderDeadline
-            baseDate = MyTimeUtils.getTomorrow();
-            startTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTime); // 明日mealStartTime
-            endTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline); // 后日orderDeadline
-        } else {
-            // 当前时间未超过本日orderDeadline → 明日菜单：本日mealStartTime ~ 明日orderDeadline
-            baseDate = MyTimeUtils.getToday();
-            startTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTime); // 本日mealStartTime
-            endTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline); // 明日orderDeadline
+            @RequestParam(required = false) String name,
+            ServletWebRequest webRequest) {
+        LocalDate serviceDate = menuWindow.current().getNextServiceDate();
+        // 供餐日期与菜单版本均未变化时直接返回304
+        if (dataVersions.checkNotModified(webRequest, dataVersions.etag(serviceDate.toString(), DataVersions.MENU))) {
+            return null;
         }
+        // 明日菜单的供餐日期取自菜单时段快照，菜单取自菜单快照缓存（内存分页）
+        Page<Menu> pageInfo = menuSnapshotCache.page(serviceDate, page, limit, name);
+        return R.success(pageInfo);
+    }
 
-        log.info("明日菜单查询时间范围：{} ~ {}",
-                DateUtil.formatDateTime(startTime),
-                DateUtil.formatDateTime(endTime));
-
-        // 3. 分页查询
-        Page<Menu> pageInfo = new Page<>(page, limit);
-        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(StringUtils.hasText(name), Menu::getName, name)
-                .between(Menu::getCreateTime, startTime, endTime)
-                .orderByDesc(Menu::getCreateTime);
+    /**
+     * 按供餐日期分页查询菜单（提前订餐时浏览之后某天的菜单）
+     */
+    @GetMapping("/pageByDate")
+    public R<Page<Menu>> getMenuByServiceDate(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam String serviceDate,
+            @RequestParam(required = false) String name) {
+        LocalDate day = MyTimeUtils.parseServiceDate(serviceDate, null);
+        if (day == null) {
+            return R.fail("供餐日期不能为空");
+        }
 
-        menuService.page(pageInfo, queryWrapper);
+        Page<Menu> pageInfo = menuSnapshotCache.page(day, page, limit, name);
         return R.success(pageInfo);
     }
 
     /**
-     * 添加菜单接口（默认添加到明日菜单，时间范围匹配查询逻辑）
+     * 可订餐的供餐日期列表（当前时段及之后已发布菜单的日期，yyyy-MM-dd升序）
+     */
+    @GetMapping("/serviceDates")
+    public R<List<String>> serviceDates() {
+        LocalDate current = menuWindow.current().getCurrentServiceDate();
+        // 所有员工的查询条件相同，经菜单快照缓存合并并发查询
+        List<String> dates = menuSnapshotCache.serviceDatesFrom(current).stream()
+                .map(LocalDate::toString)
+                .collect(Collectors.toList());
+        return R.success(dates);
+    }
+
+    /**
+     * 添加菜单接口（默认添加到明日菜单，可通过serviceDate提前发布之后某天的菜单）
+     * createTime设为该供餐日菜单时段的起始时间（前一日mealStartTime），与按时间范围查询的接口保持一致
      */
     @PreAuthorize("hasRole('manager')")
     @PostMapping("/add/{recipeId}")
-    public R<String> add(@PathVariable Long recipeId) {
+    public R<String> add(@PathVariable Long recipeId, @RequestParam(required = false) String serviceDate) {
         if (recipeId == null || recipeId <= 0) {
             return R.fail("食谱ID不合法");
         }
@@ -153,51 +152,36 @@ public class MenuController {
 
         String name = recipe.getName();
 
-        // 1. 获取数据库时间配置
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String mealStartTime = timeConfig.getMealStartTime(); // 配餐开始时间
-        String orderDeadline = timeConfig.getOrderDeadline(); // 订餐截止时间
-
-        // 2. 计算明日菜单时间范围（和查询接口逻辑一致）
-        Date tomorrowMenuBegin, tomorrowMenuEnd;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadline)) {
-            // 当前时间已超本日截止 → 明日菜单：明日mealStartTime ~ 后日orderDeadline
-            baseDate = MyTimeUtils.getTomorrow();
-            tomorrowMenuBegin = MyTimeUtils.getDateWithTime(baseDate, mealStartTime);
-            tomorrowMenuEnd = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline);
-        } else {
-            // 当前时间未超本日截止 → 明日菜单：本日mealStartTime ~ 明日orderDeadline
-            baseDate = MyTimeUtils.getToday();
-            tomorrowMenuBegin = MyTimeUtils.getDateWithTime(baseDate, mealStartTime);
-            tomorrowMenuEnd = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline);
-        }
+        // 1~2. 计算目标供餐日期及其菜单时段起始时间
+        LocalDate targetDate = resolvePublishDate(serviceDate);
+        Date menuBegin = menuWindow.windowStart(targetDate);
+        String label = targetDate.equals(menuWindow.current().getNextServiceDate()) ? "明日菜单" : targetDate + "菜单";
 
-        log.info("明日菜单时间范围：{} ~ {}",
-                DateUtil.formatDateTime(tomorrowMenuBegin),
-                DateUtil.formatDateTime(tomorrowMenuEnd));
+        log.info("{}供餐日期：{}，时段起始：{}", label, targetDate, DateUtil.formatDateTime(menuBegin));
 
-        // 3. 检查该时间范围内是否已存在该菜品
+        // 3. 检查该供餐日是否已存在该菜品
         LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Menu::getName, name)
-                .between(Menu::getCreateTime, tomorrowMenuBegin, tomorrowMenuEnd);
-        Menu isExist = menuService.getOne(queryWrapper);
+                .eq(Menu::getServiceDate, targetDate);
+        long isExist = menuService.count(queryWrapper);
 
-        if (isExist != null) {
-            return R.fail("当前菜品已添加到明日菜单");
+        if (isExist > 0) {
+            return R.fail("当前菜品已添加到" + label);
         }
 
-        // 4. 构建菜单对象（createTime设为明日菜单起始时间）
+        // 4. 构建菜单对象（createTime设为该日菜单时段起始时间）
         Menu menu = new Menu();
         menu.setName(recipe.getName());
         menu.setCategory(recipe.getCategory());
         menu.setPicture(recipe.getPicture());
         menu.setUnit(recipe.getUnit());
         menu.setPrice(recipe.getPrice());
-        menu.setCreateTime(tomorrowMenuBegin); // 匹配明日菜单起始时间
+        menu.setCreateTime(menuBegin);
+        menu.setServiceDate(MyTimeUtils.toDate(targetDate));
 
         boolean res = menuService.save(menu);
-        return res ? R.success("添加明日菜单成功") : R.fail("添加明日菜单失败");
+        menuSnapshotCache.evictAll();
+        return res ? R.success("添加" + label + "成功") : R.fail("添加" + label + "失败");
     }
 
     /**
@@ -210,6 +194,7 @@ public class MenuController {
             return R.fail("菜单ID不合法");
         }
         boolean res = menuService.removeById(menuId);
+        menuSnapshotCache.evictAll();
         return res ? R.success("删除成功") : R.fail("删除失败");
     }
 
@@ -247,6 +232,7 @@ public class MenuController {
         menu.setMenuId(editMenu.getMenuId());
 
         boolean res = menuService.updateById(menu);
+        menuSnapshotCache.evictAll();
         return res ? R.success("修改成功！") : R.fail("修改失败！");
     }
 
@@ -262,92 +248,111 @@ public class MenuController {
 
         String[] ids = menuIds.split(",");
         boolean res = menuService.removeByIds(java.util.Arrays.asList(ids));
+        menuSnapshotCache.evictAll();
         return res ? R.success("批量删除成功") : R.fail("批量删除失败");
     }
 
     /**
-     * 复用到明日菜单接口（与添加菜单接口时间逻辑完全对齐）
+     * 复用到明日菜单接口（与添加菜单接口时间逻辑完全对齐，可通过serviceDate复用到之后某天）
      */
     @PreAuthorize("hasRole('manager')")
     @PostMapping("/multiplex/{menuIds}")
-    public R<String> multiplex(@PathVariable String menuIds) {
+    public R<String> multiplex(@PathVariable String menuIds, @RequestParam(required = false) String serviceDate) {
         if (StrUtil.isEmpty(menuIds)) {
             return R.fail("请选择要复用的菜单");
         }
 
-        // 1. 获取数据库时间配置（与添加接口一致）
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String mealStartTime = timeConfig.getMealStartTime(); // 配餐开始时间
-        String orderDeadline = timeConfig.getOrderDeadline(); // 订餐截止时间
-
-        // 2. 计算明日菜单时间范围（完全复用添加接口的逻辑）
-        Date tomorrowMenuBegin, tomorrowMenuEnd;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadline)) {
-            // 当前时间已超本日截止 → 明日菜单：明日mealStartTime ~ 后日orderDeadline
-            baseDate = MyTimeUtils.getTomorrow();
-            tomorrowMenuBegin = MyTimeUtils.getDateWithTime(baseDate, mealStartTime);
-            tomorrowMenuEnd = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline);
-        } else {
-            // 当前时间未超本日截止 → 明日菜单：本日mealStartTime ~ 明日orderDeadline
-            baseDate = MyTimeUtils.getToday();
-            tomorrowMenuBegin = MyTimeUtils.getDateWithTime(baseDate, mealStartTime);
-            tomorrowMenuEnd = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadline);
-        }
-
-        log.info("复用明日菜单时间范围：{} ~ {}",
-                DateUtil.formatDateTime(tomorrowMenuBegin),
-                DateUtil.formatDateTime(tomorrowMenuEnd));
-
-        StringBuilder sb = new StringBuilder();
         boolean res = true;
-        String[] ids = menuIds.split(",");
-
-        for (String id : ids) {
+        List<Menu> sources = new ArrayList<>();
+        for (String id : menuIds.split(",")) {
             try {
-                Long menuId = Long.valueOf(id);
-                Menu sourceMenu = menuService.getById(menuId);
-
+                Menu sourceMenu = menuService.getById(Long.valueOf(id));
                 if (sourceMenu == null) {
                     res = false;
                     log.warn("菜单ID {} 不存在，跳过复用", id);
                     continue;
                 }
+                sources.add(sourceMenu);
+            } catch (NumberFormatException e) {
+                res = false;
+                log.error("菜单ID格式错误: {}，请传入数字ID", id, e);
+            }
+        }
+        return copyToServiceDate(sources, res, serviceDate);
+    }
 
-                String menuName = sourceMenu.getName();
-                // 3. 检查明日菜单时间范围内是否已存在该菜品（与添加接口一致）
-                LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-                queryWrapper.eq(Menu::getName, menuName)
-                        .between(Menu::getCreateTime, tomorrowMenuBegin, tomorrowMenuEnd);
-                Menu existMenu = menuService.getOne(queryWrapper);
+    /**
+     * 复用历史菜单接口：从历史菜品快照复制，原菜单已删除也可复用
+     */
+    @PreAuthorize("hasRole('manager')")
+    @PostMapping("/multiplexHistory/{hisId}")
+    public R<String> multiplexHistory(@PathVariable Long hisId, @RequestParam(required = false) String serviceDate) {
+        List<HistoryDish> dishes = historyDishService.listByHistory(hisId);
+        if (dishes.isEmpty()) {
+            return R.fail("该历史菜单没有菜品");
+        }
+        List<Menu> sources = new ArrayList<>(dishes.size());
+        for (HistoryDish dish : dishes) {
+            Menu menu = new Menu();
+            menu.setName(dish.getName());
+            menu.setCategory(dish.getCategory());
+            menu.setPicture(dish.getPicture());
+            menu.setUnit(dish.getUnit());
+            menu.setPrice(dish.getPrice());
+            sources.add(menu);
+        }
+        return copyToServiceDate(sources, true, serviceDate);
+    }
 
-                if (existMenu != null) {
-                    res = false;
-                    sb.append(menuName).append("、");
-                    continue;
-                }
+    /**
+     * 将菜品复制为目标供餐日的新菜单，已存在同名菜品的跳过
+     * @param allFound 来源菜品是否全部有效（存在无效ID时整体提示失败）
+     */
+    private R<String> copyToServiceDate(List<Menu> sources, boolean allFound, String serviceDate) {
+        // 1~2. 计算目标供餐日期及其菜单时段起始时间（与添加接口一致）
+        LocalDate targetDate = resolvePublishDate(serviceDate);
+        Date tomorrowMenuBegin = menuWindow.windowStart(targetDate);
+        Date targetDay = MyTimeUtils.toDate(targetDate);
 
-                // 4. 构建新菜单对象（createTime与添加接口一致，设为明日菜单起始时间）
-                Menu newMenu = new Menu();
-                newMenu.setName(sourceMenu.getName());
-                newMenu.setCategory(sourceMenu.getCategory());
-                newMenu.setPicture(sourceMenu.getPicture());
-                newMenu.setUnit(sourceMenu.getUnit());
-                newMenu.setPrice(sourceMenu.getPrice());
-                newMenu.setCreateTime(tomorrowMenuBegin); // 核心：与添加接口时间对齐
-
-                // 5. 执行新增（自增主键，无需手动设置menuId）
-                boolean saveSuccess = menuService.save(newMenu);
-                if (!saveSuccess) {
-                    res = false;
-                    log.error("菜单 {}（ID:{}）复用失败", menuName, id);
-                }
-            } catch (NumberFormatException e) {
+        log.info("复用菜单供餐日期：{}，时段起始：{}", targetDate, DateUtil.formatDateTime(tomorrowMenuBegin));
+
+        StringBuilder sb = new StringBuilder();
+        boolean res = allFound;
+
+        for (Menu sourceMenu : sources) {
+            String menuName = sourceMenu.getName();
+            // 3. 检查该供餐日是否已存在该菜品（与添加接口一致）
+            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(Menu::getName, menuName)
+                    .eq(Menu::getServiceDate, targetDate);
+            long existMenu = menuService.count(queryWrapper);
+
+            if (existMenu > 0) {
                 res = false;
-                log.error("菜单ID格式错误: {}，请传入数字ID", id, e);
+                sb.append(menuName).append("、");
+                continue;
+            }
+
+            // 4. 构建新菜单对象（createTime与添加接口一致，设为明日菜单起始时间）
+            Menu newMenu = new Menu();
+            newMenu.setName(sourceMenu.getName());
+            newMenu.setCategory(sourceMenu.getCategory());
+            newMenu.setPicture(sourceMenu.getPicture());
+            newMenu.setUnit(sourceMenu.getUnit());
+            newMenu.setPrice(sourceMenu.getPrice());
+            newMenu.setCreateTime(tomorrowMenuBegin); // 核心：与添加接口时间对齐
+            newMenu.setServiceDate(targetDay);
+
+            // 5. 执行新增（自增主键，无需手动设置menuId）
+            boolean saveSuccess = menuService.save(newMenu);
+            if (!saveSuccess) {
+                res = false;
+                log.error("菜单 {} 复用失败", menuName);
             }
         }
 
+        menuSnapshotCache.evictAll();
+
         // 6. 统一返回结果（细化提示信息）
         if (res) {
             return R.success("所有选中菜单批量复用至明日菜单成功");
@@ -363,4 +368,16 @@ public class MenuController {
             return R.fail("批量复用至明日菜单失败，" + errorMsg);
         }
     }
+
+    /**
+     * 发布菜单的目标供餐日期：默认明日菜单（当前时段的下一供餐日），指定日期不得早于明日菜单
+     */
+    private LocalDate resolvePublishDate(String serviceDate) {
+        LocalDate tomorrowMenuDate = menuWindow.current().getNextServiceDate();
+        LocalDate targetDate = MyTimeUtils.parseServiceDate(serviceDate, tomorrowMenuDate);
+        if (targetDate.isBefore(tomorrowMenuDate)) {
+            throw new CustomException("仅可发布" + tomorrowMenuDate + "及之后的菜单");
+        }
+        return targetDate;
+    }
 }
\ No newline at end of file
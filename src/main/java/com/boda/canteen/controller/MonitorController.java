@@ -0,0 +1,84 @@
+package com.boda.canteen.controller;
+
+import com.boda.canteen.common.MenuSnapshotCache;
+import com.boda.canteen.common.OrderIntakeQueue;
+import com.boda.canteen.common.OrderingWarmUp;
+import com.boda.canteen.common.R;
+import com.boda.canteen.interception.OrderAdmissionInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运行指标接口（用于高峰期调整限流参数）
+ */
+@RestController
+@RequestMapping("/monitor")
+public class MonitorController {
+
+    @Autowired
+    private OrderAdmissionInterceptor orderAdmissionInterceptor;
+
+    @Autowired
+    private OrderIntakeQueue orderIntakeQueue;
+
+    @Autowired
+    private OrderingWarmUp orderingWarmUp;
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    /**
+     * 点餐准入控制指标
+     */
+    @GetMapping("/admission")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> admission() {
+        return R.success(orderAdmissionInterceptor.metrics());
+    }
+
+    /**
+     * 全部点餐相关指标（准入控制 + 异步受理积压）
+     */
+    @GetMapping("/ordering")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> ordering() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("admission", orderAdmissionInterceptor.metrics());
+        map.put("intake", orderIntakeQueue.lag());
+        return R.success(map);
+    }
+
+    /**
+     * 菜单读取的请求合并指标（coalescingRatio=共享他人查询结果的调用占比）
+     */
+    @GetMapping("/coalescing")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> coalescing() {
+        return R.success(menuSnapshotCache.coalescingMetrics());
+    }
+
+    /**
+     * 最近一次点餐预热报告（耗时与覆盖情况）
+     */
+    @GetMapping("/warmUp")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> warmUp() {
+        return R.success(orderingWarmUp.getLastReport());
+    }
+
+    /**
+     * 立即执行一次点餐预热（仅本节点）
+     */
+    @PostMapping("/warmUp")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> runWarmUp() {
+        return R.success(orderingWarmUp.run());
+    }
+}
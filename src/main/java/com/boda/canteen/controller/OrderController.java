@@ -2,25 +2,35 @@ package com.boda.canteen.controller;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.IoUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import com.boda.canteen.common.DuplicateKeys;
+import com.boda.canteen.common.GroupOrderRequest;
+import com.boda.canteen.common.IdGenerator;
+import com.boda.canteen.common.MenuWindow;
 import com.boda.canteen.common.MyTimeUtils;
+import com.boda.canteen.common.OrderIntakeQueue;
+import com.boda.canteen.common.OrderIntakeRecord;
+import com.boda.canteen.common.OrderWindowGuard;
 import com.boda.canteen.common.R;
 import com.boda.canteen.entity.*;
 import com.boda.canteen.exception.CustomException;
 import com.boda.canteen.security.service.BlanketOrderService;
+import com.boda.canteen.security.service.MenuService;
+import com.boda.canteen.security.service.MyUserService;
 import com.boda.canteen.security.service.OrderFormService;
 import com.boda.canteen.security.service.ShopCartService;
-import com.boda.canteen.security.service.TimeConfigService;
+import com.boda.canteen.security.service.UserMonthLedgerService;
 import io.jsonwebtoken.io.IOException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import cn.hutool.poi.excel.ExcelUtil;
@@ -47,82 +57,75 @@ public class OrderController {
     @Autowired
     private BlanketOrderService blanketOrderService;
 
-    // 新增：注入时间配置服务
     @Autowired
-    private TimeConfigService timeConfigService;
+    private MenuWindow menuWindow;
+
+    @Autowired
+    private MenuService menuService;
+
+    @Autowired
+    private MyUserService myUserService;
+
+    @Autowired
+    private OrderWindowGuard orderWindowGuard;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private OrderIntakeQueue orderIntakeQueue;
+
+    @Autowired
+    private UserMonthLedgerService userMonthLedgerService;
+
+    private static final String DUPLICATE_ORDER_MSG = "同一供餐日仅可提交一次订单，您已提交过该日订单，无法重复提交！";
 
 
     /**
      * 订单提交接口
      * 核心规则：
-     * 1. 配送时间段（本日orderDeadline ~ mealStartTime）：完全禁止点单
-     * 2. 非配送时间段：本日菜单时间范围内（上一日mealStartTime ~ 本日orderDeadline）仅可提交一次订单，不可重复提交/覆盖
+     * 1. serviceDate为空时提交当前时段（上一日mealStartTime ~ 本日orderDeadline）订单；
+     *    指定之后的供餐日期时为提前订餐，该日菜单须已发布
+     * 2. 配送时间段（本日orderDeadline ~ mealStartTime）：禁止提交当前时段订单，提前订餐不受限制
+     * 3. 同一供餐日仅可提交一次订单，不可重复提交/覆盖
      */
     @PostMapping("/submit")
     @Transactional(rollbackFor = Exception.class) // 事务保障，防止数据不一致
-    public R<String> submit(@RequestBody OrderForm orderForm, HttpServletRequest request){
+    public R<String> submit(@RequestBody OrderForm orderForm,
+                            @RequestParam(required = false) String serviceDate,
+                            HttpServletRequest request){
         // ===== 1. 基础校验 =====
         MyUser currUser = (MyUser) request.getSession().getAttribute("currUser");
         if (currUser == null || currUser.getUserId() == null) {
             throw new CustomException("用户未登录，请先登录");
         }
         Long userId = currUser.getUserId();
+        Date now = MyTimeUtils.now();
 
-        // ===== 2. 双重校验：是否处于配送时段（防止拦截器失效） =====
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String orderDeadlineStr = timeConfig.getOrderDeadline() == null ? "09:00:00" : timeConfig.getOrderDeadline();
-        String mealStartTimeStr = timeConfig.getMealStartTime() == null ? "11:30:00" : timeConfig.getMealStartTime();
-
-        LocalDate today = LocalDate.now();
-        Date now = new Date();
-        Date todayOrderDeadline = MyTimeUtils.getDateWithTime(today, orderDeadlineStr);
-        Date todayMealStartTime = MyTimeUtils.getDateWithTime(today, mealStartTimeStr);
-
-        // 判断是否在配送时段（orderDeadline <= 当前时间 <= mealStartTime）
-        boolean isInDeliveryPeriod = !now.before(todayOrderDeadline) && !now.after(todayMealStartTime);
-        if (isInDeliveryPeriod) {
-            throw new CustomException("当前处于配送时间段，禁止提交订单！");
-        }
-
-        // ===== 3. 计算本日菜单时间范围（与菜单接口逻辑完全对齐） =====
-        Date todayMenuStartTime, todayMenuEndTime;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadlineStr)) {
-            // 当前时间已超过本日orderDeadline → 本日菜单：本日mealStartTime ~ 明日orderDeadline
-            baseDate = MyTimeUtils.getToday();
-            todayMenuStartTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTimeStr);
-            todayMenuEndTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadlineStr);
-        } else {
-            // 当前时间未超过本日orderDeadline → 本日菜单：昨日mealStartTime ~ 本日orderDeadline
-            baseDate = MyTimeUtils.getYesterday();
-            todayMenuStartTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTimeStr);
-            todayMenuEndTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadlineStr);
-        }
-        log.info("用户{}本日菜单时间范围：{} ~ {}", userId,
-                DateUtil.formatDateTime(todayMenuStartTime),
-                DateUtil.formatDateTime(todayMenuEndTime));
-
-        // ===== 4. 校验：本日菜单时间范围内是否已有订单（核心规则） =====
-        LambdaQueryWrapper<OrderForm> existOrderQuery = new LambdaQueryWrapper<>();
-        existOrderQuery.eq(OrderForm::getUserId, userId)
-                .between(OrderForm::getOrderTime, todayMenuStartTime, todayMenuEndTime);
-        long existOrderCount = orderFormService.count(existOrderQuery);
+        // ===== 2~3. 双重校验：供餐日期是否可订、是否处于配送时段（防止拦截器失效） =====
+        LocalDate targetDate = resolveServiceDate(serviceDate, "提交");
+        log.info("用户{}提交供餐日期{}的订单", userId, targetDate);
 
-        if (existOrderCount > 0) {
-            throw new CustomException("本日菜单时间范围内仅可提交一次订单，您已提交过，无法重复提交！");
+        // ===== 4. 校验：该供餐日是否已有订单（核心规则） =====
+        // 内存预占O(1)判重，并发重复提交只有一个能通过；数据库唯一键(userId, serviceDate)兜底
+        long windowId = targetDate.toEpochDay();
+        if (!orderWindowGuard.tryReserve(userId, windowId)) {
+            throw new CustomException(DUPLICATE_ORDER_MSG);
         }
+        orderWindowGuard.releaseOnRollback(userId, windowId);
 
-        // ===== 5. 购物车校验 =====
+        // ===== 5. 购物车校验（仅该供餐日的购物车） =====
         LambdaQueryWrapper<ShopCart> cartQueryWrapper = new LambdaQueryWrapper<>();
-        cartQueryWrapper.eq(ShopCart::getUserId, userId);
+        cartQueryWrapper.eq(ShopCart::getUserId, userId)
+                .eq(ShopCart::getServiceDate, targetDate);
         List<ShopCart> shopCartList = shopCartService.list(cartQueryWrapper);
         if (shopCartList == null || shopCartList.isEmpty()) {
             throw new CustomException("购物车为空，无法提交订单");
         }
 
         // ===== 6. 生成新订单 =====
-        // 生成唯一订单ID
-        long newOrderId = RandomUtil.randomLong(100000L, 999999999999L);
+        // 生成唯一订单ID（按时间有序，无碰撞）
+        long newOrderId = idGenerator.nextId();
         // 补齐订单信息
         orderForm.setOrderId(newOrderId);
         orderForm.setUserId(userId);
@@ -130,16 +133,36 @@ public class OrderController {
         orderForm.setOrderTime(now);
         orderForm.setTelephone(currUser.getTelephone());
         orderForm.setWorkInformation(currUser.getWorkInformation());
+        orderForm.setServiceDate(MyTimeUtils.toDate(targetDate));
 
-        // 保存主订单
-        boolean saveMainOrder = orderFormService.save(orderForm);
+        // 异步受理模式：写入本地日志即应答，由后台批量入库并清理购物车
+        if (orderIntakeQueue.isEnabled()) {
+            orderIntakeQueue.accept(toIntakeRecord(orderForm, windowId, shopCartList));
+            log.info("用户{}订单已受理，等待入库，订单号：{}", userId, newOrderId);
+            return R.success("订单提交成功");
+        }
+
+        // 保存主订单（唯一键冲突说明其他节点/重启前已提交过本时段订单）
+        boolean saveMainOrder;
+        try {
+            saveMainOrder = orderFormService.save(orderForm);
+        } catch (DuplicateKeyException e) {
+            if (!DuplicateKeys.violates(e, DuplicateKeys.ORDER_SERVICE_DATE)) {
+                // 订单号主键冲突：服务端配置或程序错误（如多节点canteen.node-id相同），不能提示为重复下单
+                log.error("订单号{}主键冲突，请检查各节点的canteen.node-id是否重复", newOrderId, e);
+                throw e;
+            }
+            log.warn("用户{}重复提交时段{}的订单，被唯一键拦截", userId, targetDate);
+            throw new CustomException(DUPLICATE_ORDER_MSG);
+        }
         if (!saveMainOrder) {
             log.error("用户{}主订单保存失败，订单号：{}", userId, newOrderId);
             throw new CustomException("订单提交失败：主订单保存失败");
         }
 
-        // ===== 7. 保存订单明细 =====
+        // ===== 7. 保存订单明细（多行VALUES批量插入，一次往返） =====
         try {
+            List<BlanketOrder> detailList = new ArrayList<>(shopCartList.size());
             for (ShopCart cart : shopCartList) {
                 BlanketOrder blanketOrder = new BlanketOrder();
                 blanketOrder.setName(cart.getName());
@@ -149,11 +172,12 @@ public class OrderController {
                 blanketOrder.setTotalPrice(cart.getTotalPrice());
                 blanketOrder.setOrderId(newOrderId);
                 blanketOrder.setCreateTime(now);
+                detailList.add(blanketOrder);
+            }
 
-                boolean saveDetail = blanketOrderService.save(blanketOrder);
-                if (!saveDetail) {
-                    throw new CustomException("菜品【" + cart.getName() + "】明细保存失败");
-                }
+            int savedRows = blanketOrderService.insertBatch(detailList);
+            if (savedRows != detailList.size()) {
+                throw new CustomException("订单明细保存不完整：应保存" + detailList.size() + "条，实际" + savedRows + "条");
             }
         } catch (Exception e) {
             // 明细保存失败，回滚主订单
@@ -164,7 +188,8 @@ public class OrderController {
 
         // ===== 8. 清空购物车 =====
         LambdaQueryWrapper<ShopCart> clearCartQuery = new LambdaQueryWrapper<>();
-        clearCartQuery.eq(ShopCart::getUserId, userId);
+        clearCartQuery.eq(ShopCart::getUserId, userId)
+                .eq(ShopCart::getServiceDate, targetDate);
         boolean clearCart = shopCartService.remove(clearCartQuery);
 
         // ===== 9. 返回结果 =====
@@ -178,6 +203,189 @@ public class OrderController {
     }
 
 
+    /**
+     * 团体代订接口：部门助理（开通代订权限的员工，或管理员）一次为多名员工提交指定供餐日（默认当前时段）的订单
+     * 1. 一次性校验：员工存在且与代订人同部门（管理员不限）、菜品均属于该日菜单、每人该日尚无订单
+     * 2. 全部通过后，在一个事务内批量插入orderForm与blanketOrder（各一条多行INSERT）
+     * 任一员工校验失败则整单拒绝，并列出全部问题，便于助理一次修正
+     */
+    @PreAuthorize("hasAnyRole('assistant','manager')")
+    @PostMapping("/group")
+    @Transactional(rollbackFor = Exception.class)
+    public R<String> groupSubmit(@RequestBody GroupOrderRequest groupOrder,
+                                 @RequestParam(required = false) String serviceDate,
+                                 HttpServletRequest request) {
+        // ===== 1. 基础校验 =====
+        MyUser currUser = (MyUser) request.getSession().getAttribute("currUser");
+        if (currUser == null || currUser.getUserId() == null) {
+            throw new CustomException("用户未登录，请先登录");
+        }
+        if (groupOrder == null || groupOrder.getMembers() == null || groupOrder.getMembers().isEmpty()) {
+            throw new CustomException("代订名单为空");
+        }
+        boolean isManager = "manager".equals(currUser.getRole());
+        if (!isManager && StrUtil.isEmpty(currUser.getDepartment())) {
+            throw new CustomException("您未设置所属部门，无法代订");
+        }
+
+        // ===== 2. 供餐日期与配送时段校验 =====
+        Date now = MyTimeUtils.now();
+        LocalDate targetDate = resolveServiceDate(serviceDate, "提交");
+        Date serviceDay = MyTimeUtils.toDate(targetDate);
+        long windowId = targetDate.toEpochDay();
+
+        // ===== 3. 一次性校验全部员工与菜品 =====
+        List<String> problems = new ArrayList<>();
+        Set<Long> userIds = new LinkedHashSet<>();
+        Set<Long> menuIds = new HashSet<>();
+        for (GroupOrderRequest.Member member : groupOrder.getMembers()) {
+            if (member.getUserId() == null || !userIds.add(member.getUserId())) {
+                problems.add("员工ID为空或重复：" + member.getUserId());
+                continue;
+            }
+            if (member.getItems() == null || member.getItems().isEmpty()) {
+                problems.add("员工" + member.getUserId() + "未选择菜品");
+                continue;
+            }
+            for (GroupOrderRequest.Item item : member.getItems()) {
+                if (item.getMenuId() == null || item.getWeight() == null || item.getWeight() <= 0) {
+                    problems.add("员工" + member.getUserId() + "的菜品ID为空或数量不合法");
+                } else {
+                    menuIds.add(item.getMenuId());
+                }
+            }
+        }
+
+        Map<Long, MyUser> users = userIds.isEmpty() ? Collections.emptyMap()
+                : myUserService.listByIds(userIds).stream().collect(Collectors.toMap(MyUser::getUserId, u -> u));
+        for (Long id : userIds) {
+            MyUser user = users.get(id);
+            if (user == null) {
+                problems.add("员工" + id + "不存在");
+            } else if (!isManager && !currUser.getDepartment().equals(user.getDepartment())) {
+                problems.add("员工" + user.getUsername() + "不属于" + currUser.getDepartment() + "，无法代订");
+            }
+        }
+
+        // 菜品必须属于该日菜单（单价以菜单为准）
+        Map<Long, Menu> menus = menuIds.isEmpty() ? Collections.emptyMap()
+                : menuService.list(new LambdaQueryWrapper<Menu>()
+                        .in(Menu::getMenuId, menuIds)
+                        .eq(Menu::getServiceDate, targetDate))
+                .stream().collect(Collectors.toMap(Menu::getMenuId, m -> m));
+        for (Long menuId : menuIds) {
+            if (!menus.containsKey(menuId)) {
+                problems.add("菜品" + menuId + "不在" + targetDate + "的菜单中");
+            }
+        }
+
+        // 该日已有订单的员工（数据库中已提交的）
+        if (!users.isEmpty()) {
+            List<OrderForm> ordered = orderFormService.list(new LambdaQueryWrapper<OrderForm>()
+                    .select(OrderForm::getUserId, OrderForm::getName)
+                    .in(OrderForm::getUserId, users.keySet())
+                    .eq(OrderForm::getServiceDate, targetDate));
+            for (OrderForm o : ordered) {
+                problems.add("员工" + o.getName() + "本时段已提交过订单");
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new CustomException("团体订单校验未通过：" + String.join("；", problems));
+        }
+
+        // ===== 4. 逐人预占时段（并发提交/个人同时下单时只有一方成功） =====
+        // 已预占的在事务回滚（含下方校验失败）时自动释放
+        for (Long id : userIds) {
+            if (orderWindowGuard.tryReserve(id, windowId)) {
+                orderWindowGuard.releaseOnRollback(id, windowId);
+            } else {
+                problems.add("员工" + users.get(id).getUsername() + "本时段已提交过订单");
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new CustomException("团体订单校验未通过：" + String.join("；", problems));
+        }
+
+        // ===== 5. 组装并批量写入 =====
+        List<OrderForm> orders = new ArrayList<>(userIds.size());
+        List<BlanketOrder> details = new ArrayList<>();
+        for (GroupOrderRequest.Member member : groupOrder.getMembers()) {
+            MyUser user = users.get(member.getUserId());
+            long orderId = idGenerator.nextId();
+            long orderPrice = 0;
+            for (GroupOrderRequest.Item item : member.getItems()) {
+                Menu menu = menus.get(item.getMenuId());
+                BlanketOrder bo = new BlanketOrder();
+                bo.setName(menu.getName());
+                bo.setUnit(menu.getUnit());
+                bo.setWeight(item.getWeight());
+                bo.setPrice(menu.getPrice());
+                bo.setTotalPrice(menu.getPrice() * item.getWeight());
+                bo.setOrderId(orderId);
+                bo.setCreateTime(now);
+                details.add(bo);
+                orderPrice += bo.getTotalPrice();
+            }
+            OrderForm orderForm = new OrderForm();
+            orderForm.setOrderId(orderId);
+            orderForm.setUserId(user.getUserId());
+            orderForm.setName(user.getUsername());
+            orderForm.setTelephone(user.getTelephone());
+            orderForm.setWorkInformation(user.getWorkInformation());
+            orderForm.setOrderTime(now);
+            orderForm.setOrderPrice(orderPrice);
+            orderForm.setServiceDate(serviceDay);
+            orders.add(orderForm);
+        }
+
+        try {
+            orderFormService.insertBatch(orders);
+        } catch (DuplicateKeyException e) {
+            if (!DuplicateKeys.violates(e, DuplicateKeys.ORDER_SERVICE_DATE)) {
+                log.error("团体订单订单号主键冲突，代订人{}，请检查各节点的canteen.node-id是否重复", currUser.getUserId(), e);
+                throw e;
+            }
+            log.warn("团体订单唯一键冲突，代订人{}：{}", currUser.getUserId(), e.getMessage());
+            throw new CustomException("部分员工本时段已提交过订单，请刷新后重试");
+        }
+        blanketOrderService.insertBatch(details);
+
+        log.info("用户{}代订{}份订单，明细{}条", currUser.getUserId(), orders.size(), details.size());
+        return R.success("团体订单提交成功，共" + orders.size() + "份");
+    }
+
+    private OrderIntakeRecord toIntakeRecord(OrderForm orderForm, long windowId, List<ShopCart> shopCartList) {
+        OrderIntakeRecord record = new OrderIntakeRecord();
+        record.setOrderId(orderForm.getOrderId());
+        record.setUserId(orderForm.getUserId());
+        record.setName(orderForm.getName());
+        record.setTelephone(orderForm.getTelephone());
+        record.setWorkInformation(orderForm.getWorkInformation());
+        record.setOrderPrice(orderForm.getOrderPrice());
+        record.setOrderTime(orderForm.getOrderTime().getTime());
+        record.setServiceDate(windowId);
+        for (ShopCart cart : shopCartList) {
+            OrderIntakeRecord.Line line = new OrderIntakeRecord.Line();
+            line.setName(cart.getName());
+            line.setUnit(cart.getUnit());
+            line.setWeight(cart.getWeight());
+            line.setPrice(cart.getPrice());
+            line.setTotalPrice(cart.getTotalPrice());
+            record.getLines().add(line);
+            record.getCartIds().add(cart.getScId());
+        }
+        return record;
+    }
+
+    /**
+     * 异步受理积压情况（队列长度、待入库日志字节数、最早一笔的等待时长）
+     */
+    @GetMapping("/intakeLag")
+    @PreAuthorize("hasRole('manager')")
+    public R<Map<String, Object>> intakeLag() {
+        return R.success(orderIntakeQueue.lag());
+    }
+
     /**
      * 订单分页接口
      */
@@ -219,6 +427,63 @@ public class OrderController {
         return R.success(pageInfo);
     }
 
+    /**
+     * 个人中心-今日订单：当前用户当前时段（本日供餐日）订单的明细（一次JOIN，分页，前端滚动时加载下一页）
+     */
+    @GetMapping("/myToday")
+    public R<Page<UserOrderLine>> myToday(@RequestParam(defaultValue = "1") int page,
+                                         @RequestParam(defaultValue = "20") int limit,
+                                         HttpServletRequest request) {
+        Long userId = currentUserId(request);
+        Page<UserOrderLine> pageInfo = new Page<>(page, limit);
+        blanketOrderService.pageUserLines(userId, menuWindow.current().getCurrentServiceDate(), pageInfo);
+        return R.success(pageInfo);
+    }
+
+    /**
+     * 个人中心-月度订单：当前用户某月（yyyy-MM，默认本月）的菜品账单，分页
+     */
+    @GetMapping("/myMonthly")
+    public R<Page<UserMonthLedger>> myMonthly(@RequestParam(defaultValue = "1") int page,
+                                              @RequestParam(defaultValue = "20") int limit,
+                                              @RequestParam(required = false) String month,
+                                              HttpServletRequest request) {
+        Long userId = currentUserId(request);
+        Page<UserMonthLedger> pageInfo = new Page<>(page, limit);
+        userMonthLedgerService.pageStatement(userId, checkMonth(month), pageInfo);
+        return R.success(pageInfo);
+    }
+
+    /**
+     * 个人中心-月度订单：当前用户某月（yyyy-MM，默认本月）的消费合计
+     */
+    @GetMapping("/myMonthlyTotal")
+    public R<Long> myMonthlyTotal(@RequestParam(required = false) String month, HttpServletRequest request) {
+        Long userId = currentUserId(request);
+        return R.success(userMonthLedgerService.sumStatement(userId, checkMonth(month)));
+    }
+
+    private Long currentUserId(HttpServletRequest request) {
+        MyUser currUser = (MyUser) request.getSession().getAttribute("currUser");
+        if (currUser == null || currUser.getUserId() == null) {
+            throw new CustomException("用户未登录，请先登录");
+        }
+        return currUser.getUserId();
+    }
+
+    /**
+     * 月份为空时取本月；非yyyy-MM格式时报错（不允许为空查询全部月份）
+     */
+    private String checkMonth(String month) {
+        if (StrUtil.isEmpty(month)) {
+            return DateUtil.formatDate(MyTimeUtils.now()).substring(0, 7);
+        }
+        if (!month.matches("\\d{4}-(0[1-9]|1[0-2])")) {
+            throw new CustomException("月份格式应为yyyy-MM");
+        }
+        return month;
+    }
+
     /**
      * 取消订单接口（删除订单+明细，允许重新提交）
      * 核心规则：仅允许在非配送时段取消「本日菜单时间范围」内的订单
@@ -242,37 +507,8 @@ public class OrderController {
             throw new CustomException("无权取消他人订单");
         }
 
-        // 3. 校验：是否处于配送时段（配送时段禁止取消）
-        TimeConfig timeConfig = timeConfigService.getCurrentConfig();
-        String orderDeadlineStr = timeConfig.getOrderDeadline() == null ? "09:00:00" : timeConfig.getOrderDeadline();
-        String mealStartTimeStr = timeConfig.getMealStartTime() == null ? "11:30:00" : timeConfig.getMealStartTime();
-
-        LocalDate today = LocalDate.now();
-        Date now = new Date();
-        Date todayOrderDeadline = MyTimeUtils.getDateWithTime(today, orderDeadlineStr);
-        Date todayMealStartTime = MyTimeUtils.getDateWithTime(today, mealStartTimeStr);
-
-        boolean isInDeliveryPeriod = !now.before(todayOrderDeadline) && !now.after(todayMealStartTime);
-        if (isInDeliveryPeriod) {
-            throw new CustomException("当前处于配送时间段，禁止取消订单！");
-        }
-
-        // 4. 校验：订单是否在「本日菜单时间范围」内（仅允许取消本日菜单内的订单）
-        Date todayMenuStartTime, todayMenuEndTime;
-        LocalDate baseDate;
-        if (MyTimeUtils.isAfterTodayOrderDeadline(orderDeadlineStr)) {
-            baseDate = MyTimeUtils.getToday();
-            todayMenuStartTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTimeStr);
-            todayMenuEndTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadlineStr);
-        } else {
-            baseDate = MyTimeUtils.getYesterday();
-            todayMenuStartTime = MyTimeUtils.getDateWithTime(baseDate, mealStartTimeStr);
-            todayMenuEndTime = MyTimeUtils.getDateWithTime(baseDate.plusDays(1), orderDeadlineStr);
-        }
-
-        if (orderForm.getOrderTime().before(todayMenuStartTime) || orderForm.getOrderTime().after(todayMenuEndTime)) {
-            throw new CustomException("仅可取消本日菜单时间范围内的订单，历史订单无法取消");
-        }
+        // 3~4. 校验：订单所属供餐日尚未截止（当前时段须在非配送时段）
+        LocalDate serviceDate = checkOrderModifiable(orderForm, "取消");
 
         // 5. 删除订单明细
         LambdaQueryWrapper<BlanketOrder> blanketQuery = new LambdaQueryWrapper<>();
@@ -288,23 +524,195 @@ public class OrderController {
             throw new CustomException("订单取消失败：主订单删除失败");
         }
 
+        // 7. 事务提交后释放时段预占，允许重新提交
+        orderWindowGuard.releaseAfterCommit(userId, serviceDate.toEpochDay());
+
         log.info("用户{}成功取消订单，订单号：{}", userId, orderId);
         return R.success("订单取消成功，您可重新提交新订单");
     }
 
 
     /**
-     * 厨师专栏订单分页接口
+     * 订单修改接口（按明细差异增量写入，无需取消后重新提交）
+     * 请求体为修改后的完整菜品列表，每项只传菜单ID和数量，菜品须属于订单供餐日的菜单，名称/单位/单价以菜单为准；
+     * 按菜单中的「菜品名称+单位」与现有明细比对：
+     * 新增的批量INSERT、数量/单价变化的批量UPDATE、移除的按ID批量DELETE，未变化的行不写
+     * 校验规则与取消订单一致：仅允许修改尚未截止的本人订单（当前时段订单须在非配送时段修改）
+     */
+    @PutMapping("/edit/{orderId}")
+    @Transactional(rollbackFor = Exception.class)
+    public R<String> editOrder(@PathVariable Long orderId, @RequestBody List<GroupOrderRequest.Item> items, HttpServletRequest request) {
+        // 1. 基础校验：用户登录状态、请求明细
+        MyUser currUser = (MyUser) request.getSession().getAttribute("currUser");
+        if (currUser == null || currUser.getUserId() == null) {
+            throw new CustomException("用户未登录，请先登录");
+        }
+        Long userId = currUser.getUserId();
+        if (items == null || items.isEmpty()) {
+            throw new CustomException("修改后的订单不能为空，如需取消请使用取消订单");
+        }
+
+        // 2. 校验订单是否存在且归属当前用户（锁定主订单行，同一订单的并发修改串行执行）
+        OrderForm orderForm = orderFormService.getOne(new LambdaQueryWrapper<OrderForm>()
+                .eq(OrderForm::getOrderId, orderId)
+                .last("FOR UPDATE"));
+        if (orderForm == null) {
+            throw new CustomException("订单不存在，无法修改");
+        }
+        if (!userId.equals(orderForm.getUserId())) {
+            throw new CustomException("无权修改他人订单");
+        }
+
+        // 3. 校验：订单所属供餐日尚未截止（当前时段须在非配送时段）
+        LocalDate serviceDate = checkOrderModifiable(orderForm, "修改");
+
+        // 4. 菜品必须属于订单供餐日的菜单（名称/单位/单价以菜单为准）
+        Set<Long> menuIds = new HashSet<>();
+        for (GroupOrderRequest.Item item : items) {
+            if (item.getMenuId() == null || item.getWeight() == null || item.getWeight() <= 0) {
+                throw new CustomException("菜品ID为空或数量不合法");
+            }
+            menuIds.add(item.getMenuId());
+        }
+        Map<Long, Menu> menus = menuService.list(new LambdaQueryWrapper<Menu>()
+                        .in(Menu::getMenuId, menuIds)
+                        .eq(Menu::getServiceDate, serviceDate))
+                .stream().collect(Collectors.toMap(Menu::getMenuId, m -> m));
+        Map<String, BlanketOrder> requested = new LinkedHashMap<>();
+        long orderPrice = 0;
+        for (GroupOrderRequest.Item item : items) {
+            Menu menu = menus.get(item.getMenuId());
+            if (menu == null) {
+                throw new CustomException("菜品" + item.getMenuId() + "不在" + serviceDate + "的菜单中");
+            }
+            BlanketOrder line = new BlanketOrder();
+            line.setName(menu.getName());
+            line.setUnit(menu.getUnit());
+            line.setPrice(menu.getPrice());
+            line.setWeight(item.getWeight());
+            line.setTotalPrice(menu.getPrice() * item.getWeight());
+            if (requested.put(lineKey(line), line) != null) {
+                throw new CustomException("菜品【" + menu.getName() + "】重复，请合并数量后提交");
+            }
+            orderPrice += line.getTotalPrice();
+        }
+
+        // 5. 计算明细差异
+        List<BlanketOrder> existing = blanketOrderService.list(new LambdaQueryWrapper<BlanketOrder>()
+                .eq(BlanketOrder::getOrderId, orderId));
+
+        Date now = MyTimeUtils.now();
+        List<BlanketOrder> toUpdate = new ArrayList<>();
+        List<Long> toDelete = new ArrayList<>();
+        for (BlanketOrder old : existing) {
+            BlanketOrder line = requested.remove(lineKey(old));
+            if (line == null) {
+                toDelete.add(old.getMealId());
+            } else if (!line.getWeight().equals(old.getWeight()) || !line.getPrice().equals(old.getPrice())) {
+                old.setWeight(line.getWeight());
+                old.setPrice(line.getPrice());
+                old.setTotalPrice(line.getTotalPrice());
+                toUpdate.add(old);
+            }
+        }
+        List<BlanketOrder> toInsert = new ArrayList<>(requested.size());
+        for (BlanketOrder line : requested.values()) {
+            line.setOrderId(orderId);
+            line.setCreateTime(now);
+            toInsert.add(line);
+        }
+        if (toInsert.isEmpty() && toUpdate.isEmpty() && toDelete.isEmpty()) {
+            return R.success("订单未发生变化");
+        }
+
+        // 6. 增量写入：每类变更各一条语句
+        blanketOrderService.insertBatch(toInsert);
+        blanketOrderService.updateBatch(toUpdate);
+        if (!toDelete.isEmpty()) {
+            blanketOrderService.removeByIds(toDelete);
+        }
+
+        // 7. 同步订单总价
+        if (orderForm.getOrderPrice() == null || orderForm.getOrderPrice() != orderPrice) {
+            OrderForm update = new OrderForm();
+            update.setOrderId(orderId);
+            update.setOrderPrice(orderPrice);
+            orderFormService.updateById(update);
+        }
+
+        log.info("用户{}修改订单{}：新增{}项，修改{}项，删除{}项", userId, orderId, toInsert.size(), toUpdate.size(), toDelete.size());
+        return R.success("订单修改成功");
+    }
+
+    private String lineKey(BlanketOrder line) {
+        return line.getName() + "|" + StrUtil.nullToEmpty(line.getUnit());
+    }
+
+    /**
+     * 解析并校验目标供餐日期（为空时取当前时段）
+     * 1. 早于当前时段的供餐日已截止
+     * 2. 当前时段：配送时段内禁止操作
+     * 3. 之后的供餐日（提前订餐）：该日菜单须已发布，不受配送时段限制
+     */
+    private LocalDate resolveServiceDate(String serviceDateStr, String action) {
+        MenuWindow.Snapshot window = menuWindow.current();
+        LocalDate currentServiceDate = window.getCurrentServiceDate();
+        LocalDate serviceDate = MyTimeUtils.parseServiceDate(serviceDateStr, currentServiceDate);
+        if (serviceDate.isBefore(currentServiceDate)) {
+            throw new CustomException(serviceDate + "的订餐已截止，无法" + action + "订单");
+        }
+        if (serviceDate.equals(currentServiceDate)) {
+            if (window.isInDeliveryPeriod()) {
+                throw new CustomException("当前处于配送时间段，禁止" + action + "订单！");
+            }
+        } else if (menuService.count(new LambdaQueryWrapper<Menu>()
+                .eq(Menu::getServiceDate, serviceDate)) == 0) {
+            throw new CustomException(serviceDate + "的菜单尚未发布，无法提前" + action + "订单");
+        }
+        return serviceDate;
+    }
+
+    /**
+     * 取消/修改订单的公共校验：仅可操作供餐日尚未截止的订单，当前时段的订单在配送时段禁止操作
+     * 未记录供餐日期的历史订单按下单时间判断是否属于「本日菜单时间范围」
+     * @return 订单所属的供餐日期
+     */
+    private LocalDate checkOrderModifiable(OrderForm orderForm, String action) {
+        MenuWindow.Snapshot window = menuWindow.current();
+        LocalDate currentServiceDate = window.getCurrentServiceDate();
+
+        LocalDate serviceDate;
+        if (orderForm.getServiceDate() != null) {
+            serviceDate = MyTimeUtils.toLocalDate(orderForm.getServiceDate());
+            if (serviceDate.isBefore(currentServiceDate)) {
+                throw new CustomException("该订单的供餐日已截止，历史订单无法" + action);
+            }
+        } else {
+            // 历史订单：下单时间须在本日菜单时间范围内
+            if (!window.inCurrentWindow(orderForm.getOrderTime().getTime())) {
+                throw new CustomException("仅可" + action + "本日菜单时间范围内的订单，历史订单无法" + action);
+            }
+            serviceDate = currentServiceDate;
+        }
+
+        if (serviceDate.equals(currentServiceDate) && window.isInDeliveryPeriod()) {
+            throw new CustomException("当前处于配送时间段，禁止" + action + "订单！");
+        }
+        return serviceDate;
+    }
+
+
+    /**
+     * 厨师专栏订单分页接口（按供餐日期汇总，默认本日；提前订餐的订单计入其供餐日）
      */
     @GetMapping("/pageChef")
-    public R<Page<BlanketOrder>> pageByChef(int page, int limit){
+    public R<Page<BlanketOrder>> pageByChef(int page, int limit,
+                                            @RequestParam(required = false) String serviceDate){
         Page<BlanketOrder> pageInfo = new Page<>(page, limit);
 
         QueryWrapper<BlanketOrder> queryWrapper = new QueryWrapper<>();
-        // 获取当前这一天的开始与结尾
-        Date begin = DateUtil.beginOfDay(DateUtil.date());
-        Date end = DateUtil.endOfDay(DateUtil.date());
-        queryWrapper.between("createTime", begin, end)
+        LocalDate day = MyTimeUtils.parseServiceDate(serviceDate, MyTimeUtils.getToday());
+        queryWrapper.inSql("orderId", serviceDateOrderIdsSql(day))
                 .select("name, unit, sum(weight) as weight, sum(totalPrice) as totalPrice")
                 .groupBy("name, unit, price");
         blanketOrderService.page(pageInfo, queryWrapper);
@@ -315,12 +723,12 @@ public class OrderController {
      * 厨师批量打印功能
      */
     @GetMapping("/printChef/{names}")
-    public void printByBatchWithChef(@PathVariable String names, HttpServletResponse response){
+    public void printByBatchWithChef(@PathVariable String names,
+                                     @RequestParam(required = false) String serviceDate,
+                                     HttpServletResponse response){
         QueryWrapper<BlanketOrder> queryWrapper = new QueryWrapper<>();
-        // 获取当前这一天的开始与结尾
-        Date begin = DateUtil.beginOfDay(DateUtil.date());
-        Date end = DateUtil.endOfDay(DateUtil.date());
-        queryWrapper.between("createTime", begin, end)
+        LocalDate day = MyTimeUtils.parseServiceDate(serviceDate, MyTimeUtils.getToday());
+        queryWrapper.inSql("orderId", serviceDateOrderIdsSql(day))
                 .in("name", Arrays.stream(names.split(",")).toArray())
                 .select("name, unit, sum(weight) as weight, sum(totalPrice) as totalPrice")
                 .groupBy("name, unit, price");
@@ -337,7 +745,7 @@ public class OrderController {
         }
         ServletOutputStream out = null;
         try (ExcelWriter writer = ExcelUtil.getWriter()) {
-            writer.merge(3, "今日备餐汇总");
+            writer.merge(3, day.equals(MyTimeUtils.getToday()) ? "今日备餐汇总" : day + "备餐汇总");
             writer.write(data, true);
             response.setContentType("application/vnd.ms-excel;charset=utf-8");
             response.setHeader("Content-Disposition", "attachment;filename=orderByChef.xls");
@@ -353,6 +761,13 @@ public class OrderController {
     }
 
 
+    /**
+     * 指定供餐日全部订单号的子查询（日期由LocalDate格式化，无注入风险）
+     */
+    private String serviceDateOrderIdsSql(LocalDate serviceDate) {
+        return "SELECT orderId FROM orderForm WHERE serviceDate = '" + serviceDate + "'";
+    }
+
     private CellStyle createBorderStyle(ExcelWriter writer) {
         Workbook workbook = writer.getWorkbook();
         CellStyle style = workbook.createCellStyle();
@@ -452,7 +867,7 @@ public class OrderController {
                 // 底部信息
                 writer.merge(rowIndex, rowIndex, 0, 5,
                         "送餐员：caterer        打印时间：" +
-                                DateUtil.format(new Date(), "yyyy-MM-dd HH:mm:ss"),
+                                DateUtil.format(MyTimeUtils.now(), "yyyy-MM-dd HH:mm:ss"),
                         false);
                 writer.getCell(0, rowIndex).setCellStyle(borderStyle);
                 rowIndex += 2;
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import com.boda.canteen.common.DataVersions;
 import com.boda.canteen.common.R;
 import com.boda.canteen.entity.Recipe;
 import com.boda.canteen.exception.CustomException;
@@ -12,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
@@ -24,13 +26,20 @@ public class RecipeController {
     @Autowired
     private RecipeService recipeService;
 
+    @Autowired
+    private DataVersions dataVersions;
+
     /**
      * 食谱分页接口
      */
     @PreAuthorize("hasAnyRole('chef','manager')")
     @GetMapping("/page")
     public R<Page<Recipe>> getAllRecipe(int page, int limit,
-                                        @RequestParam(required = false) String name){
+                                        @RequestParam(required = false) String name,
+                                        ServletWebRequest webRequest){
+        if (dataVersions.checkNotModified(webRequest, dataVersions.etag("page", DataVersions.RECIPE))) {
+            return null;
+        }
         Page<Recipe> pageInfo = new Page<>(page, limit);
 
         LambdaQueryWrapper<Recipe> queryWrapper = new LambdaQueryWrapper<>();
@@ -67,6 +76,7 @@ public class RecipeController {
 
         boolean res = recipeService.save(recipe);
         if (res) {
+            dataVersions.bump(DataVersions.RECIPE);
             return R.success("添加成功！");
         }else{
             return R.fail("添加失败！");
@@ -103,6 +113,7 @@ public class RecipeController {
         lambdaQueryWrapper.eq(Recipe::getRecipeId, recipeId);
         boolean res = recipeService.update(recipe, lambdaQueryWrapper);
         if (res) {
+            dataVersions.bump(DataVersions.RECIPE);
             return R.success("修改成功！");
         }else{
             return R.fail("修改失败！");
@@ -120,6 +131,7 @@ public class RecipeController {
             res = recipeService.removeById(recipeId);
         }
         if (res) {
+            dataVersions.bump(DataVersions.RECIPE);
             return R.success("删除成功！");
         }else{
             return R.fail("删除失败！");
@@ -139,6 +151,8 @@ public class RecipeController {
             boolean flag = recipeService.removeById(recipeId);
             res = res && flag;
         }
+        // 部分删除失败时已删除的部分也已生效
+        dataVersions.bump(DataVersions.RECIPE);
         if (res) {
             return R.success("批量删除成功");
         }else{
@@ -5,18 +5,17 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.poi.excel.ExcelUtil;
 import cn.hutool.poi.excel.ExcelWriter;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.boda.canteen.common.MyTimeUtils;
 import com.boda.canteen.common.R;
-import com.boda.canteen.entity.BlanketOrder;
 import com.boda.canteen.entity.MyUser;
-import com.boda.canteen.entity.OrderForm;
 import com.boda.canteen.entity.Sale;
-import com.boda.canteen.security.service.BlanketOrderService;
+import com.boda.canteen.entity.SaleDishDaily;
+import com.boda.canteen.entity.UserMonthLedger;
 import com.boda.canteen.security.service.MyUserService;
-import com.boda.canteen.security.service.OrderFormService;
+import com.boda.canteen.security.service.SaleDailyService;
 import com.boda.canteen.security.service.SaleService;
+import com.boda.canteen.security.service.UserMonthLedgerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,8 +24,8 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -37,13 +36,13 @@ public class SaleController {
     private MyUserService myUserService;
 
     @Autowired
-    private OrderFormService orderFormService;
+    private SaleService saleService;
 
     @Autowired
-    private SaleService saleService;
+    private SaleDailyService saleDailyService;
 
     @Autowired
-    private BlanketOrderService blanketOrderService;
+    private UserMonthLedgerService userMonthLedgerService;
 
     // ========== 新增：手动统计截止当前时间的月度销售 ==========
     @PreAuthorize("hasAnyRole('treasurer','manager')")
@@ -58,20 +57,8 @@ public class SaleController {
             Sale sale = new Sale();
             sale.setMonth(month);
 
-            // 构建当月时间范围
-            String monthStart = month + "-01";
-            Date begin = MyTimeUtils.getMonthOfBeginTime(monthStart);
-            Date end = new Date(); // 截止当前时间
-
-            // 统计当月订单总金额
-            LambdaQueryWrapper<BlanketOrder> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.between(BlanketOrder::getCreateTime, begin, end);
-            List<BlanketOrder> list = blanketOrderService.list(queryWrapper);
-
-            Long totalPrice = 0L;
-            for (BlanketOrder bo : list) {
-                totalPrice += bo.getTotalPrice();
-            }
+            // 统计当月（按供餐日期）已提交订单总金额：已日结的供餐日读日汇总，其余读订单明细
+            long totalPrice = saleDailyService.sumTotal(MyTimeUtils.getMonthFirstDay(month), MyTimeUtils.getMonthLastDay(month));
             sale.setTotalPrice(totalPrice);
 
             // 先删除当月已存在的统计记录，再新增
@@ -125,95 +112,48 @@ public class SaleController {
     }
 
     /**
-     * 修复点1：details方法 - 解决GROUP BY和SELECT字段不匹配问题
+     * 修复点1：details方法 - 菜品汇总改为读取销售日汇总（按供餐日期统计）
      */
     @PreAuthorize("hasAnyRole('treasurer','manager')")
     @GetMapping("/details")
-    public R<Page<BlanketOrder>> details(int page, int limit, HttpServletRequest request){
+    public R<Page<SaleDishDaily>> details(int page, int limit, HttpServletRequest request){
         String month = (String) request.getSession().getAttribute("month");
-        Page<BlanketOrder> pageInfo = new Page<>(page, limit);
+        Page<SaleDishDaily> pageInfo = new Page<>(page, limit);
 
-        QueryWrapper<BlanketOrder> queryWrapper = new QueryWrapper<>();
+        LocalDate begin = LocalDate.EPOCH;
+        LocalDate end = LocalDate.of(9999, 12, 31);
         if (StrUtil.isNotEmpty(month)){
-            month = month + "-01";
-            Date begin = MyTimeUtils.getMonthOfBeginTime(month);
-            Date end = MyTimeUtils.getMonthOfEndTime(month);
-            queryWrapper.between("createTime", begin, end);
+            begin = MyTimeUtils.getMonthFirstDay(month);
+            end = MyTimeUtils.getMonthLastDay(month);
         }
-        // 修复：1. SELECT补充price（用MAX聚合） 2. GROUP BY包含所有非聚合字段
-        queryWrapper.select(
-                "name",
-                "unit",
-                "MAX(price) as price",  // 单价用MAX聚合，确保同一菜品单价一致
-                "sum(weight) as weight",
-                "sum(totalPrice) as totalPrice"
-        );
-        queryWrapper.groupBy("name, unit, price"); // GROUP BY包含price
-        blanketOrderService.page(pageInfo, queryWrapper);
+        saleDailyService.pageDishes(begin, end, pageInfo);
 
         return R.success(pageInfo);
     }
 
     /**
-     * 修复点2：monthlyOrderDetails方法（核心）- 彻底解决only_full_group_by错误
+     * 修复点2：monthlyOrderDetails方法 - 改为读取员工月度账单（按userId+月份索引查询，不再拼接订单ID列表）
      */
     @PreAuthorize("hasAnyRole('treasurer','manager')")
     @GetMapping("/monthlyOrderDetails")
-    public R<Page<BlanketOrder>> monthlyOrderDetails(
+    public R<Page<UserMonthLedger>> monthlyOrderDetails(
             @RequestParam int page,
             @RequestParam int limit,
-            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Long userId,
             @RequestParam(required = false) String month) {
         try {
             // 1. 新增：userId非空校验
-            if (StrUtil.isEmpty(userId)) {
+            if (userId == null) {
                 return R.fail("用户ID不能为空");
             }
 
-            QueryWrapper<OrderForm> orderFormWrapper = new QueryWrapper<>();
-            orderFormWrapper.eq("userId", userId);
-
-            // 2. 时间范围：截止当前时间
-            if (StrUtil.isNotEmpty(month)) {
-                String monthStart = month + "-01";
-                Date begin = MyTimeUtils.getMonthOfBeginTime(monthStart);
-                Date end = new Date();
-                orderFormWrapper.between("orderTime", begin, end);
-            }
-
-            orderFormWrapper.select("orderId");
-            List<OrderForm> orderForms = orderFormService.list(orderFormWrapper);
-
-            if (orderForms.isEmpty()) {
-                log.info("用户{}在{}月暂无订单记录", userId, month);
-                return R.success(new Page<>(page, limit));
-            }
-
-            List<Long> orderIdList = orderForms.stream()
-                    .map(OrderForm::getOrderId)
-                    .collect(Collectors.toList());
-
-            Page<BlanketOrder> pageInfo = new Page<>(page, limit);
-            QueryWrapper<BlanketOrder> blanketWrapper = new QueryWrapper<>();
-            blanketWrapper.in("orderId", orderIdList);
-
-            // 核心修复：
-            // - price用MAX()聚合（避免非聚合字段错误）
-            // - GROUP BY包含所有非聚合字段（name, unit, price）
-            blanketWrapper.select(
-                    "name",
-                    "unit",
-                    "MAX(price) as price",  // 关键：单价聚合
-                    "sum(weight) as weight",
-                    "sum(totalPrice) as totalPrice"
-            ).groupBy("name, unit, price"); // GROUP BY补充price
-
-            blanketOrderService.page(pageInfo, blanketWrapper);
+            Page<UserMonthLedger> pageInfo = new Page<>(page, limit);
+            userMonthLedgerService.pageStatement(userId, month, pageInfo);
 
             return R.success(pageInfo);
         } catch (Exception e) {
             log.error("月度订单详情查询异常", e);
-            return R.error("查询失败：" + e.getMessage());
+            return R.fail("查询失败：" + e.getMessage());
         }
     }
 
@@ -241,25 +181,10 @@ public class SaleController {
                     list1.add(map);
                     writer.write(list1, true);
                     String month = sale.getMonth();
-                    QueryWrapper<BlanketOrder> wrapper = new QueryWrapper<>();
-                    if (StrUtil.isNotEmpty(month)){
-                        month = month + "-01";
-                        Date begin = MyTimeUtils.getMonthOfBeginTime(month);
-                        Date end = MyTimeUtils.getMonthOfEndTime(month);
-                        wrapper.between("createTime", begin, end);
-                    }
-                    // 修复print方法的GROUP BY
-                    wrapper.select(
-                            "name",
-                            "unit",
-                            "MAX(price) as price",
-                            "sum(weight) as weight",
-                            "sum(totalPrice) as totalPrice"
-                    );
-                    wrapper.groupBy("name, unit, price");
-                    List<BlanketOrder> blanketOrderList = blanketOrderService.list(wrapper);
+                    List<SaleDishDaily> dishList = saleDailyService.listDishes(
+                            MyTimeUtils.getMonthFirstDay(month), MyTimeUtils.getMonthLastDay(month));
                     ArrayList<Map<String, Object>> list2 = new ArrayList<>();
-                    for (BlanketOrder bo : blanketOrderList) {
+                    for (SaleDishDaily bo : dishList) {
                         Map<String, Object> map1 = new LinkedHashMap<>();
                         map1.put("菜品名称", bo.getName());
                         map1.put("计量单位", bo.getUnit());
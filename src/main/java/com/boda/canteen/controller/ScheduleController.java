@@ -1,11 +1,23 @@
 package com.boda.canteen.controller;
 
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.common.R;
+import com.boda.canteen.entity.JobExecution;
+import com.boda.canteen.security.service.JobExecutionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 定时任务配置刷新接口（用于Cron热更新）
  */
@@ -17,8 +29,11 @@ public class ScheduleController {
     @Autowired
     private DynamicScheduleTaskManager scheduleTaskManager;
 
+    @Autowired
+    private JobExecutionService jobExecutionService;
+
     /**
-     * 刷新动态定时任务（修改TimeConfig后调用）
+     * 刷新动态定时任务（Cron未变化的任务不会重新注册）
      */
     @PostMapping("/refresh")
     public String refreshDynamicTasks() {
@@ -30,4 +45,31 @@ public class ScheduleController {
             return "定时任务刷新失败：" + e.getMessage();
         }
     }
+
+    /**
+     * 定时任务运行状态：当前Cron、下次执行时间、上次执行时间及耗时
+     */
+    @GetMapping("/tasks")
+    @PreAuthorize("hasRole('manager')")
+    public R<List<Map<String, Object>>> tasks() {
+        return R.success(scheduleTaskManager.taskStatus());
+    }
+
+    /**
+     * 定时任务执行记录（可按任务名称、执行节点筛选），用于核对多节点部署时每次触发只执行一次
+     */
+    @GetMapping("/executions")
+    @PreAuthorize("hasRole('manager')")
+    public R<Page<JobExecution>> executions(int page, int limit,
+                                            @RequestParam(required = false) String jobName,
+                                            @RequestParam(required = false) String node) {
+        Page<JobExecution> pageInfo = new Page<>(page, limit);
+        LambdaQueryWrapper<JobExecution> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(StrUtil.isNotEmpty(jobName), JobExecution::getJobName, jobName)
+                .eq(StrUtil.isNotEmpty(node), JobExecution::getNode, node)
+                .orderByDesc(JobExecution::getFireTime)
+                .orderByDesc(JobExecution::getId);
+        jobExecutionService.page(pageInfo, queryWrapper);
+        return R.success(pageInfo);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.boda.canteen.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.boda.canteen.common.MenuWindow;
+import com.boda.canteen.common.MyTimeUtils;
 import com.boda.canteen.common.R;
 import com.boda.canteen.entity.MyUser;
 import com.boda.canteen.entity.ShopCart;
@@ -12,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -21,11 +24,17 @@ public class ShopCartController {
     @Autowired
     private ShopCartService shopCartService;
 
+    @Autowired
+    private MenuWindow menuWindow;
+
     /**
      * 购物车添加接口（修复多用户冲突问题）
+     * serviceDate为空时加入当前时段的购物车，指定之后的日期时加入提前订餐的购物车
      */
     @PostMapping("/add")
-    public R<String> saveInfo(@RequestBody ShopCart shopCart, HttpServletRequest request){
+    public R<String> saveInfo(@RequestBody ShopCart shopCart,
+                              @RequestParam(required = false) String serviceDate,
+                              HttpServletRequest request){
         if (shopCart == null) {
             throw new CustomException("购物车基本信息为空,无法加入购物车");
         }
@@ -39,11 +48,13 @@ public class ShopCartController {
 
         boolean res;
         String name = shopCart.getName();
+        LocalDate serviceDay = resolveServiceDate(serviceDate);
 
-        // 2. 核心修改：查询条件增加用户ID，确保只查询当前用户的该菜品记录
+        // 2. 核心修改：查询条件增加用户ID与供餐日期，确保只查询当前用户该日的该菜品记录
         LambdaQueryWrapper<ShopCart> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(ShopCart::getName, name)  // 菜品名称
-                .eq(ShopCart::getUserId, userId); // 当前用户ID
+                .eq(ShopCart::getUserId, userId) // 当前用户ID
+                .eq(ShopCart::getServiceDate, serviceDay);
 
         ShopCart info = shopCartService.getOne(queryWrapper);
 
@@ -55,6 +66,7 @@ public class ShopCartController {
             LambdaUpdateWrapper<ShopCart> updateWrapper = new LambdaUpdateWrapper<>();
             updateWrapper.eq(ShopCart::getName, name)
                     .eq(ShopCart::getUserId, userId) // 仅更新当前用户的记录
+                    .eq(ShopCart::getServiceDate, serviceDay)
                     .set(ShopCart::getWeight, newWeight)
                     .set(ShopCart::getTotalPrice, newTotalPrice);
             res = shopCartService.update(null, updateWrapper);
@@ -62,6 +74,7 @@ public class ShopCartController {
         } else {
             // 4. 当前用户未添加过该菜品，新增购物车记录
             shopCart.setUserId(userId); // 绑定当前用户ID
+            shopCart.setServiceDate(MyTimeUtils.toDate(serviceDay));
             shopCart.setTotalPrice(shopCart.getPrice() * shopCart.getWeight());
             res = shopCartService.save(shopCart);
             log.info("用户{}新增购物车菜品【{}】，数量：{}", userId, name, shopCart.getWeight());
@@ -78,7 +91,8 @@ public class ShopCartController {
      * 购物车信息获取接口
      */
     @GetMapping("/get")
-    public R<List<ShopCart>> getInfo(HttpServletRequest request){
+    public R<List<ShopCart>> getInfo(@RequestParam(required = false) String serviceDate,
+                                     HttpServletRequest request){
         MyUser currUser = (MyUser) request.getSession().getAttribute("currUser");
         if (currUser == null || currUser.getUserId() == null) {
             throw new CustomException("用户未登录，无法获取购物车信息");
@@ -86,7 +100,8 @@ public class ShopCartController {
         Long userId = currUser.getUserId();
 
         LambdaQueryWrapper<ShopCart> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ShopCart::getUserId, userId);
+        queryWrapper.eq(ShopCart::getUserId, userId)
+                .eq(ShopCart::getServiceDate, resolveServiceDate(serviceDate));
         List<ShopCart> list = shopCartService.list(queryWrapper);
 
         if (list != null) {
@@ -110,4 +125,16 @@ public class ShopCartController {
         }
     }
 
+    /**
+     * 购物车所属供餐日期（为空时取当前时段，早于当前时段的日期已截止）
+     */
+    private LocalDate resolveServiceDate(String serviceDate) {
+        LocalDate current = menuWindow.current().getCurrentServiceDate();
+        LocalDate day = MyTimeUtils.parseServiceDate(serviceDate, current);
+        if (day.isBefore(current)) {
+            throw new CustomException(day + "的订餐已截止");
+        }
+        return day;
+    }
+
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.boda.canteen.controller;
 
+import com.boda.canteen.common.DataVersions;
 import com.boda.canteen.common.R;
 import com.boda.canteen.entity.TimeConfig;
 import com.boda.canteen.security.service.TimeConfigService;
@@ -7,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @Slf4j
 @RestController
@@ -16,15 +18,22 @@ public class TimeConfigController {
     @Autowired
     private TimeConfigService timeConfigService;
 
+    @Autowired
+    private DataVersions dataVersions;
+
     /**
      * 获取当前时间配置（所有角色均可查看）
      */
     @GetMapping("/current")
-    public R<TimeConfig> getCurrentConfig() {
+    public R<TimeConfig> getCurrentConfig(ServletWebRequest webRequest) {
         log.info("===== 接收获取当前时间配置请求 =====");
         try {
             log.info("开始调用timeConfigService.getCurrentConfig()获取配置...");
             TimeConfig config = timeConfigService.getCurrentConfig();
+            // 配置取自内存快照，ETag由配置ID与版本号组成
+            if (dataVersions.checkNotModified(webRequest, "timeConfig-" + config.getId() + "." + config.getVersion())) {
+                return null;
+            }
             log.info("配置获取成功，返回结果：orderDeadline={}, mealStartTime={}",
                     config.getOrderDeadline(), config.getMealStartTime());
             return R.success(config);
@@ -0,0 +1,23 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 数据版本号（按表，表数据每次修改+1，用于生成ETag及各节点缓存失效）
+ */
+@Data
+@TableName("dataVersion")
+public class DataVersion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.INPUT)
+    private String name;
+
+    private Long version;
+}
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.Date;
 
 @Data
 @TableName("history")
@@ -18,5 +19,6 @@ public class History implements Serializable {
 
     private String timeRange;
 
-    private String menuIds;
+    // 供餐日期（菜品明细按该日期存于historyDish）
+    private Date serviceDate;
 }
\ No newline at end of file
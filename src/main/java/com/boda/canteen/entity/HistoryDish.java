@@ -0,0 +1,38 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 历史菜品快照（配餐开始时按供餐日期复制当日菜单，之后修改/删除菜单不影响历史记录）
+ */
+@Data
+@TableName("historyDish")
+public class HistoryDish implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Date serviceDate;
+
+    private Long menuId; // 快照来源菜单（仅作参考，菜单可能已删除）
+
+    private String name;
+
+    private String category;
+
+    private String unit;
+
+    private Long price;
+
+    private String picture;
+
+    private Date snapshotTime;
+}
@@ -0,0 +1,38 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 定时任务执行记录（每个节点实际执行的每一次）
+ */
+@Data
+@TableName("jobExecution")
+public class JobExecution implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String jobName;
+
+    private Date fireTime;
+
+    private String node; // 执行节点
+
+    private Date startTime;
+
+    private Date endTime;
+
+    private Long durationMs;
+
+    private String status; // SUCCESS / FAILED
+
+    private String errorMsg;
+}
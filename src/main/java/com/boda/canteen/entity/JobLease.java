@@ -0,0 +1,30 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 定时任务租约：每个任务一行，记录当前触发时刻由哪个节点执行
+ */
+@Data
+@TableName("jobLease")
+public class JobLease implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.INPUT)
+    private String jobName;
+
+    private String owner; // 持有租约的节点
+
+    private Date fireTime; // 本次触发时刻（Cron计划时间）
+
+    private Date leaseUntil; // 租约到期时间，执行期间由心跳续期
+
+    private String status; // RUNNING / DONE
+}
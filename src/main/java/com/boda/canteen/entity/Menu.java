@@ -28,4 +28,7 @@ public class Menu implements Serializable {
     private Long price;
 
     private Date createTime;
+
+    // 供餐日期（菜单所属时段：前一日mealStartTime ~ 该日orderDeadline）
+    private Date serviceDate;
 }
\ No newline at end of file
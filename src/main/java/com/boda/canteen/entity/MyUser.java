@@ -23,4 +23,6 @@ public class MyUser implements Serializable {
     private String department;
     private String role;
     private String workInformation;
+    // 代订权限（部门助理）：为true时可为本部门员工团体代订
+    private Boolean orderAgent;
 }
\ No newline at end of file
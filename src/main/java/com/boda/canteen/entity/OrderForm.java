@@ -28,4 +28,7 @@ public class OrderForm implements Serializable {
     private Long orderPrice;
 
     private String workInformation;
+
+    // 所属菜单时段的供餐日期（时段以该日orderDeadline结束），与userId构成唯一键
+    private Date serviceDate;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 日销售汇总（按供餐日期，订餐截止后由日结任务生成；存在该行即表示该供餐日已日结）
+ */
+@Data
+@TableName("saleDaily")
+public class SaleDaily implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.INPUT)
+    private Date serviceDate;
+
+    private Long orderCount;
+
+    private Long totalPrice;
+
+    private Date closeTime; // 日结时间
+}
@@ -0,0 +1,34 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 菜品日销售汇总（供餐日期+菜品名称+单位+单价）
+ */
+@Data
+@TableName("saleDishDaily")
+public class SaleDishDaily implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Date serviceDate;
+
+    private String name;
+
+    private String unit;
+
+    private Long price;
+
+    private Long weight;
+
+    private Long totalPrice;
+}
@@ -32,4 +32,7 @@ public class ShopCart implements Serializable {
     private Long userId;
 
     private String workInformation;
+
+    // 供餐日期（购物车按供餐日期分开，提前订餐互不影响）
+    private Date serviceDate;
 }
\ No newline at end of file
@@ -25,4 +25,6 @@ public class TimeConfig implements Serializable {
 
     @TableField("update_time") // 明确指定数据库字段名
     private Date updateTime; // 配置更新时间
+
+    private Long version; // 配置版本号，每次修改+1，供其他节点判断缓存是否过期
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.boda.canteen.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 员工月度账单（员工+月份+菜品，月份按供餐日期；随销售日结逐日累加，月末最后一天日结后即为最终账单）
+ */
+@Data
+@TableName("userMonthLedger")
+public class UserMonthLedger implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    private String month; // YYYY-MM
+
+    private String name;
+
+    private String unit;
+
+    private Long price;
+
+    private Long weight;
+
+    private Long totalPrice;
+}
@@ -0,0 +1,37 @@
+package com.boda.canteen.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 员工订单明细行（orderForm JOIN blanketOrder，一行一个菜品，附带所属订单信息），用于个人中心分页加载
+ */
+@Data
+public class UserOrderLine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long orderId;
+
+    private Date orderTime;
+
+    private Long orderPrice;
+
+    private String telephone;
+
+    private Date serviceDate;
+
+    private Long mealId;
+
+    private String name;
+
+    private String unit;
+
+    private Long price;
+
+    private Integer weight;
+
+    private Long totalPrice;
+}
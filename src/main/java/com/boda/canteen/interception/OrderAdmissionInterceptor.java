@@ -0,0 +1,133 @@
+package com.boda.canteen.interception;
+
+import com.boda.canteen.common.R;
+import com.boda.canteen.common.ResponseUtil;
+import com.boda.canteen.common.TokenBucketLimiter;
+import com.boda.canteen.entity.MyUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 点餐接口准入控制拦截器（/order/submit、/shopCart/add）
+ * 1. 单用户令牌桶：限制同一用户的请求频率，挡住反复刷新提交的客户端
+ * 2. 全局并发上限：同时处理的点餐请求不超过上限，短暂排队后仍拿不到许可直接拒绝，避免耗尽Tomcat线程和数据库连接
+ * 被拒绝的请求立即返回429，并在Retry-After中给出建议的重试秒数
+ */
+@Slf4j
+@Component
+public class OrderAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTR = OrderAdmissionInterceptor.class.getName() + ".PERMIT";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Value("${canteen.admission.max-concurrent:50}")
+    private int maxConcurrent;
+
+    // 拿不到并发许可时的最长排队时间
+    @Value("${canteen.admission.acquire-timeout-ms:100}")
+    private long acquireTimeoutMs;
+
+    @Value("${canteen.admission.user-rate-per-second:2}")
+    private double userRatePerSecond;
+
+    @Value("${canteen.admission.user-burst:5}")
+    private int userBurst;
+
+    private Semaphore permits;
+    private TokenBucketLimiter userLimiter;
+
+    private final AtomicLong admittedTotal = new AtomicLong();
+    private final AtomicLong rejectedByRateTotal = new AtomicLong();
+    private final AtomicLong rejectedByConcurrencyTotal = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent, true);
+        userLimiter = new TokenBucketLimiter(userRatePerSecond, userBurst);
+        log.info("点餐准入控制：全局并发上限{}，单用户{}次/秒（突发{}）", maxConcurrent, userRatePerSecond, userBurst);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // 1. 单用户限流（无锁，先于全局许可判断，刷单请求不占用并发名额）
+        long waitNanos = userLimiter.tryAcquire(userKey(request));
+        if (waitNanos > 0) {
+            rejectedByRateTotal.incrementAndGet();
+            reject(response, waitNanos, "操作过于频繁，请稍后再试");
+            return false;
+        }
+
+        // 2. 全局并发许可
+        if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            rejectedByConcurrencyTotal.incrementAndGet();
+            log.warn("点餐请求并发已满（{}），拒绝：{}", maxConcurrent, request.getRequestURI());
+            reject(response, TimeUnit.SECONDS.toNanos(1), "当前下单人数较多，请稍后再试");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTR, Boolean.TRUE);
+        admittedTotal.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTR) != null) {
+            request.removeAttribute(PERMIT_ATTR);
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * 准入指标：放行/拒绝次数、在途请求数、排队等待许可的线程数
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("maxConcurrent", maxConcurrent);
+        map.put("inFlight", inFlight.get());
+        map.put("peakInFlight", peakInFlight.get());
+        map.put("waitingForPermit", permits.getQueueLength());
+        map.put("admittedTotal", admittedTotal.get());
+        map.put("rejectedByRateTotal", rejectedByRateTotal.get());
+        map.put("rejectedByConcurrencyTotal", rejectedByConcurrencyTotal.get());
+        map.put("userRatePerSecond", userRatePerSecond);
+        map.put("userBurst", userBurst);
+        map.put("trackedUsers", userLimiter.size());
+        return map;
+    }
+
+    private Object userKey(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            MyUser currUser = (MyUser) session.getAttribute("currUser");
+            if (currUser != null && currUser.getUserId() != null) {
+                return currUser.getUserId();
+            }
+            return session.getId();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos, String msg) {
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        ResponseUtil.out(response, R.fail(TOO_MANY_REQUESTS, msg, null));
+    }
+}
@@ -1,9 +1,52 @@
 package com.boda.canteen.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.entity.UserOrderLine;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface BlanketOrderMapper extends BaseMapper<BlanketOrder> {
+
+    /**
+     * 批量插入订单明细（多行VALUES，一条语句一次往返）
+     */
+    @Insert("<script>" +
+            "INSERT INTO blanketOrder (name, unit, weight, price, totalPrice, orderId, createTime) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.name}, #{item.unit}, #{item.weight}, #{item.price}, #{item.totalPrice}, #{item.orderId}, #{item.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<BlanketOrder> list);
+
+    /**
+     * 批量更新订单明细的数量与金额（按mealId，CASE WHEN拼成一条UPDATE）
+     */
+    @Update("<script>" +
+            "UPDATE blanketOrder SET " +
+            "weight = CASE mealId <foreach collection='list' item='item'>WHEN #{item.mealId} THEN #{item.weight} </foreach>END, " +
+            "price = CASE mealId <foreach collection='list' item='item'>WHEN #{item.mealId} THEN #{item.price} </foreach>END, " +
+            "totalPrice = CASE mealId <foreach collection='list' item='item'>WHEN #{item.mealId} THEN #{item.totalPrice} </foreach>END " +
+            "WHERE mealId IN <foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.mealId}</foreach>" +
+            "</script>")
+    int updateBatch(@Param("list") List<BlanketOrder> list);
+
+    /**
+     * 员工某供餐日的订单明细（订单与明细一次JOIN，走uk_user_service_date），按下单时间倒序、同一订单的明细相邻
+     */
+    @Select("SELECT o.orderId, o.orderTime, o.orderPrice, o.telephone, o.serviceDate, " +
+            "b.mealId, b.name, b.unit, b.price, b.weight, b.totalPrice " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.userId = #{userId} AND o.serviceDate = #{serviceDate} " +
+            "ORDER BY o.orderTime DESC, o.orderId DESC, b.mealId")
+    Page<UserOrderLine> pageUserLines(Page<UserOrderLine> page, @Param("userId") Long userId,
+                                      @Param("serviceDate") LocalDate serviceDate);
 }
@@ -0,0 +1,18 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.boda.canteen.entity.DataVersion;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface DataVersionMapper extends BaseMapper<DataVersion> {
+
+    /**
+     * 版本号+1（首次修改时插入版本1）
+     */
+    @Insert("INSERT INTO dataVersion (name, version) VALUES (#{name}, 1) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1")
+    int bump(@Param("name") String name);
+}
@@ -0,0 +1,23 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.boda.canteen.entity.HistoryDish;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+@Mapper
+public interface HistoryDishMapper extends BaseMapper<HistoryDish> {
+
+    /**
+     * 将某供餐日的菜单整体复制到快照表（单条INSERT ... SELECT，已快照过的菜品忽略）
+     * @return 新增快照行数
+     */
+    @Insert("INSERT IGNORE INTO historyDish (serviceDate, menuId, name, category, unit, price, picture, snapshotTime) " +
+            "SELECT serviceDate, menuId, name, category, unit, price, picture, #{snapshotTime} " +
+            "FROM menu WHERE serviceDate = #{serviceDate}")
+    int snapshot(@Param("serviceDate") LocalDate serviceDate, @Param("snapshotTime") Date snapshotTime);
+}
@@ -0,0 +1,9 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.boda.canteen.entity.JobExecution;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface JobExecutionMapper extends BaseMapper<JobExecution> {
+}
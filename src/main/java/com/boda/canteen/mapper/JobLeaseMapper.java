@@ -0,0 +1,53 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.boda.canteen.entity.JobLease;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+
+/**
+ * 租约的判断与到期时间均以数据库时钟（NOW(3)）为准，不受各节点时钟偏差影响
+ */
+@Mapper
+public interface JobLeaseMapper extends BaseMapper<JobLease> {
+
+    /**
+     * 任务首次执行：插入租约行，已存在则忽略
+     * @return 1=获得租约
+     */
+    @Insert("INSERT IGNORE INTO jobLease (jobName, owner, fireTime, leaseUntil, status) " +
+            "VALUES (#{jobName}, #{owner}, #{fireTime}, NOW(3) + INTERVAL #{leaseSeconds} SECOND, 'RUNNING')")
+    int insertIfAbsent(@Param("jobName") String jobName, @Param("owner") String owner,
+                       @Param("fireTime") Date fireTime, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 抢占租约：上一次触发已过去，或本次触发的执行节点租约过期（节点宕机）
+     * @return 1=获得租约
+     */
+    @Update("UPDATE jobLease SET owner = #{owner}, fireTime = #{fireTime}, " +
+            "leaseUntil = NOW(3) + INTERVAL #{leaseSeconds} SECOND, status = 'RUNNING' " +
+            "WHERE jobName = #{jobName} " +
+            "AND (fireTime < #{fireTime} OR (fireTime = #{fireTime} AND status = 'RUNNING' AND leaseUntil < NOW(3)))")
+    int acquire(@Param("jobName") String jobName, @Param("owner") String owner,
+                @Param("fireTime") Date fireTime, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 执行期间续期
+     * @return 0=租约已被其他节点接管
+     */
+    @Update("UPDATE jobLease SET leaseUntil = NOW(3) + INTERVAL #{leaseSeconds} SECOND " +
+            "WHERE jobName = #{jobName} AND owner = #{owner} AND fireTime = #{fireTime} AND status = 'RUNNING'")
+    int renew(@Param("jobName") String jobName, @Param("owner") String owner,
+              @Param("fireTime") Date fireTime, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 执行结束：标记本次触发已完成（失败也不再由其他节点重试）
+     */
+    @Update("UPDATE jobLease SET status = 'DONE', leaseUntil = NOW(3) " +
+            "WHERE jobName = #{jobName} AND owner = #{owner} AND fireTime = #{fireTime}")
+    int complete(@Param("jobName") String jobName, @Param("owner") String owner, @Param("fireTime") Date fireTime);
+}
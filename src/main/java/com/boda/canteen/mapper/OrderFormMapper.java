@@ -2,8 +2,23 @@ package com.boda.canteen.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.boda.canteen.entity.OrderForm;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface OrderFormMapper extends BaseMapper<OrderForm> {
+
+    /**
+     * 批量插入主订单（多行VALUES，订单号由业务侧预先生成）
+     */
+    @Insert("<script>" +
+            "INSERT INTO orderForm (orderId, userId, name, telephone, orderTime, orderPrice, workInformation, serviceDate) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.orderId}, #{item.userId}, #{item.name}, #{item.telephone}, #{item.orderTime}, #{item.orderPrice}, #{item.workInformation}, #{item.serviceDate})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<OrderForm> list);
 }
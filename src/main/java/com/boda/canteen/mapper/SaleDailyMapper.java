@@ -0,0 +1,51 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.boda.canteen.entity.SaleDaily;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+@Mapper
+public interface SaleDailyMapper extends BaseMapper<SaleDaily> {
+
+    /**
+     * 生成某供餐日的日汇总（金额取自该日的菜品汇总，须先生成saleDishDaily；无订单也写一行0）
+     */
+    @Insert("INSERT INTO saleDaily (serviceDate, orderCount, totalPrice, closeTime) " +
+            "SELECT #{day}, " +
+            "(SELECT COUNT(*) FROM orderForm WHERE serviceDate = #{day}), " +
+            "(SELECT COALESCE(SUM(totalPrice), 0) FROM saleDishDaily WHERE serviceDate = #{day}), " +
+            "#{closeTime}")
+    int close(@Param("day") LocalDate day, @Param("closeTime") Date closeTime);
+
+    @Delete("DELETE FROM saleDaily WHERE serviceDate = #{day}")
+    int deleteDay(@Param("day") LocalDate day);
+
+    /**
+     * 已日结的最后一个供餐日（无记录返回null）
+     */
+    @Select("SELECT MAX(serviceDate) FROM saleDaily")
+    LocalDate lastClosedDay();
+
+    /**
+     * 最早有订单的供餐日（首次日结时回补的起点）
+     */
+    @Select("SELECT MIN(serviceDate) FROM orderForm")
+    LocalDate firstOrderDay();
+
+    /**
+     * 供餐日期在[begin, end]内的销售总额：已日结部分读日汇总，未日结部分（截止前的当日/提前订餐）读订单明细
+     */
+    @Select("SELECT " +
+            "(SELECT COALESCE(SUM(totalPrice), 0) FROM saleDaily WHERE serviceDate BETWEEN #{begin} AND #{end} AND serviceDate <= #{closedThrough}) + " +
+            "(SELECT COALESCE(SUM(b.totalPrice), 0) FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.serviceDate BETWEEN #{begin} AND #{end} AND o.serviceDate > #{closedThrough})")
+    long sumTotal(@Param("begin") LocalDate begin, @Param("end") LocalDate end,
+                  @Param("closedThrough") LocalDate closedThrough);
+}
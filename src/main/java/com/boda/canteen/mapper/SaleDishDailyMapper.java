@@ -0,0 +1,51 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.entity.SaleDishDaily;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface SaleDishDailyMapper extends BaseMapper<SaleDishDaily> {
+
+    /**
+     * 供餐日期在[begin, end]内的菜品汇总：已日结部分读菜品日汇总，未日结部分读订单明细，合并后按菜品再汇总
+     */
+    String DISH_SUMMARY = "SELECT name, unit, price, SUM(weight) AS weight, SUM(totalPrice) AS totalPrice FROM (" +
+            "SELECT name, unit, price, weight, totalPrice FROM saleDishDaily " +
+            "WHERE serviceDate BETWEEN #{begin} AND #{end} AND serviceDate <= #{closedThrough} " +
+            "UNION ALL " +
+            "SELECT COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), b.weight, b.totalPrice " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.serviceDate BETWEEN #{begin} AND #{end} AND o.serviceDate > #{closedThrough}" +
+            ") t GROUP BY name, unit, price ORDER BY name, unit, price";
+
+    /**
+     * 生成某供餐日的菜品汇总（单条INSERT ... SELECT ... GROUP BY）
+     */
+    @Insert("INSERT INTO saleDishDaily (serviceDate, name, unit, price, weight, totalPrice) " +
+            "SELECT o.serviceDate, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), " +
+            "SUM(b.weight), SUM(b.totalPrice) " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.serviceDate = #{day} " +
+            "GROUP BY o.serviceDate, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0)")
+    int close(@Param("day") LocalDate day);
+
+    @Delete("DELETE FROM saleDishDaily WHERE serviceDate = #{day}")
+    int deleteDay(@Param("day") LocalDate day);
+
+    @Select(DISH_SUMMARY)
+    Page<SaleDishDaily> pageSummary(Page<SaleDishDaily> page, @Param("begin") LocalDate begin,
+                                    @Param("end") LocalDate end, @Param("closedThrough") LocalDate closedThrough);
+
+    @Select(DISH_SUMMARY)
+    List<SaleDishDaily> listSummary(@Param("begin") LocalDate begin, @Param("end") LocalDate end,
+                                    @Param("closedThrough") LocalDate closedThrough);
+}
@@ -2,8 +2,17 @@ package com.boda.canteen.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.boda.canteen.entity.TimeConfig;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 
 @Mapper
 public interface TimeConfigMapper extends BaseMapper<TimeConfig> {
+
+    /**
+     * 插入默认配置（固定主键1，并发冷启动时只有一条能插入成功，其余被忽略）
+     * @return 实际插入行数
+     */
+    @Insert("INSERT IGNORE INTO time_config (id, order_deadline, meal_start_time, update_time, version) " +
+            "VALUES (1, #{orderDeadline}, #{mealStartTime}, #{updateTime}, 0)")
+    int insertDefaultIfAbsent(TimeConfig timeConfig);
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.boda.canteen.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.boda.canteen.entity.UserMonthLedger;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface UserMonthLedgerMapper extends BaseMapper<UserMonthLedger> {
+
+    /**
+     * 员工账单明细：已日结部分读账单行（userId+month索引），未日结部分读该员工的订单明细，合并后按菜品汇总
+     * month为空时统计该员工全部月份
+     */
+    String STATEMENT_ROWS = "SELECT name, unit, price, weight, totalPrice FROM userMonthLedger WHERE userId = #{userId} " +
+            "<if test='month != null'>AND month = #{month} </if>" +
+            "UNION ALL " +
+            "SELECT COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), b.weight, b.totalPrice " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.userId = #{userId} AND o.serviceDate > #{closedThrough} " +
+            "AND o.serviceDate BETWEEN #{begin} AND #{end}";
+
+    String STATEMENT = "<script>SELECT name, unit, price, SUM(weight) AS weight, SUM(totalPrice) AS totalPrice FROM (" +
+            STATEMENT_ROWS + ") t GROUP BY name, unit, price ORDER BY name, unit, price</script>";
+
+    String STATEMENT_TOTAL = "<script>SELECT COALESCE(SUM(totalPrice), 0) FROM (" + STATEMENT_ROWS + ") t</script>";
+
+    /**
+     * 累加某供餐日的订单到当月账单（该日首次日结时调用）
+     * 按orderForm.serviceDate归属，该列非空：升级时同一员工同一时段的历史重复单已并入保留的订单（原单记于orderFormMerged），其明细照常计入账单
+     */
+    @Insert("INSERT INTO userMonthLedger (userId, month, name, unit, price, weight, totalPrice) " +
+            "SELECT o.userId, #{month}, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), " +
+            "SUM(b.weight), SUM(b.totalPrice) " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.serviceDate = #{day} " +
+            "GROUP BY o.userId, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0) " +
+            "ON DUPLICATE KEY UPDATE weight = userMonthLedger.weight + VALUES(weight), " +
+            "totalPrice = userMonthLedger.totalPrice + VALUES(totalPrice)")
+    int accumulateDay(@Param("day") LocalDate day, @Param("month") String month);
+
+    @Delete("DELETE FROM userMonthLedger WHERE month = #{month}")
+    int deleteMonth(@Param("month") String month);
+
+    /**
+     * 按[begin, end]内的订单重建某月账单（重新日结已结过的供餐日时调用），归属规则同accumulateDay
+     */
+    @Insert("INSERT INTO userMonthLedger (userId, month, name, unit, price, weight, totalPrice) " +
+            "SELECT o.userId, #{month}, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), " +
+            "SUM(b.weight), SUM(b.totalPrice) " +
+            "FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId " +
+            "WHERE o.serviceDate BETWEEN #{begin} AND #{end} " +
+            "GROUP BY o.userId, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0)")
+    int rebuildMonth(@Param("month") String month, @Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    @Select(STATEMENT)
+    Page<UserMonthLedger> pageStatement(Page<UserMonthLedger> page, @Param("userId") Long userId,
+                                        @Param("month") String month, @Param("begin") LocalDate begin,
+                                        @Param("end") LocalDate end, @Param("closedThrough") LocalDate closedThrough);
+
+    @Select(STATEMENT)
+    List<UserMonthLedger> listStatement(@Param("userId") Long userId, @Param("month") String month,
+                                        @Param("begin") LocalDate begin, @Param("end") LocalDate end,
+                                        @Param("closedThrough") LocalDate closedThrough);
+
+    /**
+     * 逐行读取账单（MySQL流式结果集，导出时不在内存中保留整月明细）
+     */
+    @Select(STATEMENT)
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<UserMonthLedger> cursorStatement(@Param("userId") Long userId, @Param("month") String month,
+                                            @Param("begin") LocalDate begin, @Param("end") LocalDate end,
+                                            @Param("closedThrough") LocalDate closedThrough);
+
+    @Select(STATEMENT_TOTAL)
+    long sumStatement(@Param("userId") Long userId, @Param("month") String month,
+                      @Param("begin") LocalDate begin, @Param("end") LocalDate end,
+                      @Param("closedThrough") LocalDate closedThrough);
+}
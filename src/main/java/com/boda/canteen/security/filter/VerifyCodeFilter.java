@@ -8,6 +8,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -23,13 +24,17 @@ public class VerifyCodeFilter extends OncePerRequestFilter {
     @Resource
     private UserLoginFailureHandler userLoginFailureHandler;
 
+    // 是否校验验证码（仅压测环境关闭）
+    @Value("${canteen.captcha.enabled:true}")
+    private boolean captchaEnabled;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         // 仅拦截登录接口（精准匹配，避免拦截其他接口）
         String requestURI = request.getRequestURI();
         String method = request.getMethod();
-        if ("/login/userLogin".equals(requestURI) && "POST".equalsIgnoreCase(method)) {
+        if (captchaEnabled && "/login/userLogin".equals(requestURI) && "POST".equalsIgnoreCase(method)) {
             try {
                 validate(request); // 校验验证码
             } catch (VerifyCodeException e) {
@@ -1,9 +1,28 @@
 package com.boda.canteen.security.service;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.entity.UserOrderLine;
+
+import java.time.LocalDate;
+import java.util.List;
 
 
 public interface BlanketOrderService extends IService<BlanketOrder> {
-}
 
+    /**
+     * 批量插入订单明细（多行VALUES），返回插入行数
+     */
+    int insertBatch(List<BlanketOrder> list);
+
+    /**
+     * 批量更新订单明细的数量与金额（一条UPDATE），返回更新行数
+     */
+    int updateBatch(List<BlanketOrder> list);
+
+    /**
+     * 员工某供餐日的订单明细（含订单信息），分页
+     */
+    Page<UserOrderLine> pageUserLines(Long userId, LocalDate serviceDate, Page<UserOrderLine> page);
+}
@@ -0,0 +1,28 @@
+package com.boda.canteen.security.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.boda.canteen.entity.HistoryDish;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+public interface HistoryDishService extends IService<HistoryDish> {
+
+    /**
+     * 快照某供餐日的菜单，重复执行只补充尚未快照的菜品
+     * @return 新增快照行数
+     */
+    int snapshot(LocalDate serviceDate, Date snapshotTime);
+
+    /**
+     * 分页查询某条历史记录（按其供餐日期）的菜品快照
+     */
+    Page<HistoryDish> pageByHistory(Long hisId, Page<HistoryDish> page);
+
+    /**
+     * 查询某条历史记录（按其供餐日期）的全部菜品快照
+     */
+    List<HistoryDish> listByHistory(Long hisId);
+}
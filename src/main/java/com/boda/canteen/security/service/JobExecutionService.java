@@ -0,0 +1,7 @@
+package com.boda.canteen.security.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.boda.canteen.entity.JobExecution;
+
+public interface JobExecutionService extends IService<JobExecution> {
+}
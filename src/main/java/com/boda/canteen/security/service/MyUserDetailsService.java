@@ -51,6 +51,10 @@ public class MyUserDetailsService implements UserDetailsService {
         // 构建用户：将用户角色（如 manager、chef）转换为 Spring Security 认可的 GrantedAuthority（前缀 ROLE_ 是约定）。
         Set<GrantedAuthority> authorities = new HashSet<>();
         authorities.add(new SimpleGrantedAuthority("ROLE_" + myUser.getRole()));
+        // 代订权限不改变原角色，额外授予assistant角色（团体代订接口据此放行）
+        if (Boolean.TRUE.equals(myUser.getOrderAgent())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_assistant"));
+        }
         
         // 若数据库密码未加密，需先在注册/初始化时加密，而非登录时加密
         return new User(
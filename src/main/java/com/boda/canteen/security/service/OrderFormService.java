@@ -2,5 +2,12 @@ package com.boda.canteen.security.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.boda.canteen.entity.OrderForm;
 
+import java.util.List;
+
 public interface OrderFormService extends IService<OrderForm> {
+
+    /**
+     * 批量插入主订单（多行VALUES），返回插入行数
+     */
+    int insertBatch(List<OrderForm> list);
 }
@@ -0,0 +1,42 @@
+package com.boda.canteen.security.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.boda.canteen.entity.SaleDaily;
+import com.boda.canteen.entity.SaleDishDaily;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SaleDailyService extends IService<SaleDaily> {
+
+    /**
+     * 日结：为upTo及之前尚未日结的供餐日生成日汇总与菜品日汇总，返回本次日结的天数
+     */
+    int closeThrough(LocalDate upTo);
+
+    /**
+     * 重新生成某供餐日的汇总（幂等，用于订单数据被事后修正的情况）
+     */
+    void closeDay(LocalDate day);
+
+    /**
+     * 已日结的最后一个供餐日（从未日结时为1970-01-01），之后的供餐日须从订单明细统计
+     */
+    LocalDate closedThrough();
+
+    /**
+     * 供餐日期在[begin, end]内的销售总额
+     */
+    long sumTotal(LocalDate begin, LocalDate end);
+
+    /**
+     * 供餐日期在[begin, end]内的菜品销售汇总，分页
+     */
+    Page<SaleDishDaily> pageDishes(LocalDate begin, LocalDate end, Page<SaleDishDaily> page);
+
+    /**
+     * 供餐日期在[begin, end]内的菜品销售汇总
+     */
+    List<SaleDishDaily> listDishes(LocalDate begin, LocalDate end);
+}
@@ -3,5 +3,14 @@ package com.boda.canteen.security.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.boda.canteen.entity.ShopCart;
 
+import java.time.LocalDate;
+
 public interface ShopCartService extends IService<ShopCart> {
-}
\ No newline at end of file
+
+    /**
+     * 分批清除供餐日期不晚于upTo（及未标记供餐日期）的购物车，返回删除行数
+     * @param batchSize 每批删除的最大行数
+     * @param pauseMs 批次之间的停顿（毫秒），让出锁与IO给在线请求
+     */
+    long purgeExpired(LocalDate upTo, int batchSize, long pauseMs);
+}
@@ -19,6 +19,8 @@ public interface TimeConfigService extends IService<TimeConfig> {
         String getOrderDeadlineCron();
         String getMealStartTimeCron();
         TimeConfig getCurrentConfig();
+        // 立即从数据库重新加载配置（绕过版本检查周期）
+        TimeConfig reloadConfig();
         boolean updateConfig(TimeConfig timeConfig);
         TimeConfig initDefaultConfig();
 }
\ No newline at end of file
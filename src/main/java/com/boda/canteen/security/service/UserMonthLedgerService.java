@@ -0,0 +1,31 @@
+package com.boda.canteen.security.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.boda.canteen.entity.UserMonthLedger;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface UserMonthLedgerService extends IService<UserMonthLedger> {
+
+    /**
+     * 员工某月（YYYY-MM，为空时全部月份）的菜品账单，分页
+     */
+    Page<UserMonthLedger> pageStatement(Long userId, String month, Page<UserMonthLedger> page);
+
+    /**
+     * 员工某月（YYYY-MM，为空时全部月份）的菜品账单
+     */
+    List<UserMonthLedger> listStatement(Long userId, String month);
+
+    /**
+     * 员工某月（YYYY-MM，为空时全部月份）的消费合计
+     */
+    long sumStatement(Long userId, String month);
+
+    /**
+     * 逐行读取员工某月的菜品账单并交给consumer（导出用，不一次性加载到内存）
+     */
+    void forEachStatement(Long userId, String month, Consumer<UserMonthLedger> consumer);
+}
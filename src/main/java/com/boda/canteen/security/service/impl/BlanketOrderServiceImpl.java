@@ -1,14 +1,35 @@
 package com.boda.canteen.security.service.impl;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
+import com.boda.canteen.common.MultiRowStatements;
 import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.entity.UserOrderLine;
 import com.boda.canteen.mapper.BlanketOrderMapper;
 import com.boda.canteen.security.service.BlanketOrderService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @Service
 @Transactional
 public class BlanketOrderServiceImpl extends ServiceImpl<BlanketOrderMapper, BlanketOrder> implements BlanketOrderService {
+
+    @Override
+    public int insertBatch(List<BlanketOrder> list) {
+        return MultiRowStatements.executeInChunks(list, baseMapper::insertBatch);
+    }
+
+    @Override
+    public int updateBatch(List<BlanketOrder> list) {
+        return MultiRowStatements.executeInChunks(list, baseMapper::updateBatch);
+    }
+
+    @Override
+    public Page<UserOrderLine> pageUserLines(Long userId, LocalDate serviceDate, Page<UserOrderLine> page) {
+        return baseMapper.pageUserLines(page, userId, serviceDate);
+    }
 }
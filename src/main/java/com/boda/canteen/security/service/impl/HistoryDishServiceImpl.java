@@ -0,0 +1,41 @@
+package com.boda.canteen.security.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+
+import com.boda.canteen.entity.HistoryDish;
+import com.boda.canteen.mapper.HistoryDishMapper;
+import com.boda.canteen.security.service.HistoryDishService;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+@Service
+public class HistoryDishServiceImpl extends ServiceImpl<HistoryDishMapper, HistoryDish> implements HistoryDishService {
+
+    @Override
+    public int snapshot(LocalDate serviceDate, Date snapshotTime) {
+        return baseMapper.snapshot(serviceDate, snapshotTime);
+    }
+
+    @Override
+    public Page<HistoryDish> pageByHistory(Long hisId, Page<HistoryDish> page) {
+        return page(page, byHistory(hisId));
+    }
+
+    @Override
+    public List<HistoryDish> listByHistory(Long hisId) {
+        return list(byHistory(hisId));
+    }
+
+    // 供餐日期直接在数据库内取自history，走uk_service_date_menu索引的范围读
+    private LambdaQueryWrapper<HistoryDish> byHistory(Long hisId) {
+        LambdaQueryWrapper<HistoryDish> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.inSql(HistoryDish::getServiceDate, "SELECT serviceDate FROM history WHERE hisId = " + hisId)
+                .orderByAsc(HistoryDish::getMenuId);
+        return queryWrapper;
+    }
+}
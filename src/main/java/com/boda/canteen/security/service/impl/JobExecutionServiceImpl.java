@@ -0,0 +1,11 @@
+package com.boda.canteen.security.service.impl;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+
+import com.boda.canteen.entity.JobExecution;
+import com.boda.canteen.mapper.JobExecutionMapper;
+import com.boda.canteen.security.service.JobExecutionService;
+import org.springframework.stereotype.Service;
+
+@Service
+public class JobExecutionServiceImpl extends ServiceImpl<JobExecutionMapper, JobExecution> implements JobExecutionService {
+}
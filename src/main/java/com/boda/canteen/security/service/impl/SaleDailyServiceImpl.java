@@ -0,0 +1,101 @@
+package com.boda.canteen.security.service.impl;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+
+import com.boda.canteen.common.MyTimeUtils;
+import com.boda.canteen.entity.SaleDaily;
+import com.boda.canteen.entity.SaleDishDaily;
+import com.boda.canteen.mapper.SaleDailyMapper;
+import com.boda.canteen.mapper.SaleDishDailyMapper;
+import com.boda.canteen.mapper.UserMonthLedgerMapper;
+import com.boda.canteen.security.service.SaleDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 销售日汇总：订单在所属供餐日截止后不可再修改，配餐开始时按供餐日期把订单明细汇总为
+ * saleDishDaily（日×菜品）与saleDaily（日）两张表，并累加到员工月度账单userMonthLedger，月度统计与明细只读汇总行；
+ * 尚未日结的供餐日（截止前的当日及提前订餐）仍从订单明细读取，两部分合并后结果与直接统计明细一致
+ * （前提：每张订单都有供餐日期。升级脚本把历史重复单并入同日订单后将orderForm.serviceDate改为NOT NULL，并输出日汇总与明细的对账结果）
+ */
+@Slf4j
+@Service
+public class SaleDailyServiceImpl extends ServiceImpl<SaleDailyMapper, SaleDaily> implements SaleDailyService {
+
+    @Autowired
+    private SaleDishDailyMapper saleDishDailyMapper;
+
+    @Autowired
+    private UserMonthLedgerMapper userMonthLedgerMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public int closeThrough(LocalDate upTo) {
+        LocalDate lastClosed = baseMapper.lastClosedDay();
+        LocalDate day;
+        if (lastClosed != null) {
+            day = lastClosed.plusDays(1);
+        } else {
+            // 首次日结：从最早有订单的供餐日开始回补
+            LocalDate firstOrderDay = baseMapper.firstOrderDay();
+            day = firstOrderDay == null || firstOrderDay.isAfter(upTo) ? upTo : firstOrderDay;
+        }
+        int days = 0;
+        for (; !day.isAfter(upTo); day = day.plusDays(1)) {
+            closeDay(day);
+            days++;
+        }
+        return days;
+    }
+
+    @Override
+    public void closeDay(LocalDate day) {
+        String month = day.toString().substring(0, 7);
+        transactionTemplate.executeWithoutResult(status -> {
+            saleDishDailyMapper.deleteDay(day);
+            boolean reclose = baseMapper.deleteDay(day) > 0;
+            int dishes = saleDishDailyMapper.close(day);
+            baseMapper.close(day, MyTimeUtils.now());
+            if (reclose) {
+                // 该日已累加过员工账单，按当月已日结的供餐日重建
+                LocalDate begin = day.withDayOfMonth(1);
+                LocalDate end = begin.plusMonths(1).minusDays(1);
+                LocalDate lastClosed = baseMapper.lastClosedDay();
+                userMonthLedgerMapper.deleteMonth(month);
+                userMonthLedgerMapper.rebuildMonth(month, begin, lastClosed.isBefore(end) ? lastClosed : end);
+            } else {
+                userMonthLedgerMapper.accumulateDay(day, month);
+            }
+            log.info("供餐日{}销售日结完成，菜品汇总{}行{}", day, dishes, reclose ? "，已重建员工月度账单" : "");
+        });
+    }
+
+    @Override
+    public long sumTotal(LocalDate begin, LocalDate end) {
+        return baseMapper.sumTotal(begin, end, closedThrough());
+    }
+
+    @Override
+    public Page<SaleDishDaily> pageDishes(LocalDate begin, LocalDate end, Page<SaleDishDaily> page) {
+        return saleDishDailyMapper.pageSummary(page, begin, end, closedThrough());
+    }
+
+    @Override
+    public List<SaleDishDaily> listDishes(LocalDate begin, LocalDate end) {
+        return saleDishDailyMapper.listSummary(begin, end, closedThrough());
+    }
+
+    @Override
+    public LocalDate closedThrough() {
+        LocalDate lastClosed = baseMapper.lastClosedDay();
+        return lastClosed == null ? LocalDate.EPOCH : lastClosed;
+    }
+}
@@ -1,11 +1,60 @@
 package com.boda.canteen.security.service.impl;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
 import com.boda.canteen.entity.ShopCart;
 import com.boda.canteen.mapper.ShopCartMapper;
 import com.boda.canteen.security.service.ShopCartService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.List;
+
+@Slf4j
 @Service
 public class ShopCartServiceImpl extends ServiceImpl<ShopCartMapper, ShopCart> implements ShopCartService {
-}
\ No newline at end of file
+
+    /**
+     * 按主键区间分批删除：每批先只查出一段过期行的主键，再按该主键区间删除（自动提交，锁只持有一批的时间），
+     * 批次之间停顿，避免一次性大DELETE在截止时刻长时间持锁、撑大undo日志
+     * 过期购物车在查询中已按供餐日期过滤，物理删除晚一些不影响业务
+     */
+    @Override
+    public long purgeExpired(LocalDate upTo, int batchSize, long pauseMs) {
+        long deleted = 0;
+        int lastId = 0;
+        while (true) {
+            List<ShopCart> chunk = list(expired(upTo)
+                    .select(ShopCart::getScId)
+                    .gt(ShopCart::getScId, lastId)
+                    .orderByAsc(ShopCart::getScId)
+                    .last("LIMIT " + batchSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            int first = chunk.get(0).getScId();
+            lastId = chunk.get(chunk.size() - 1).getScId();
+            deleted += baseMapper.delete(expired(upTo).between(ShopCart::getScId, first, lastId));
+            if (chunk.size() < batchSize) {
+                break;
+            }
+            if (pauseMs > 0) {
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("购物车清理被中断，已删除{}条", deleted);
+                    break;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private LambdaQueryWrapper<ShopCart> expired(LocalDate upTo) {
+        LambdaQueryWrapper<ShopCart> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.and(w -> w.le(ShopCart::getServiceDate, upTo).or().isNull(ShopCart::getServiceDate));
+        return queryWrapper;
+    }
+}
@@ -1,18 +1,37 @@
 package com.boda.canteen.security.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.boda.canteen.common.TimeConfigChangedEvent;
 import com.boda.canteen.entity.TimeConfig;
 import com.boda.canteen.mapper.TimeConfigMapper;
 import com.boda.canteen.security.service.TimeConfigService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service("timeConfigService") // 显式指定Bean名称（可选，默认是类名首字母小写） // 关键：确保此注解存在，Spring才会将其注册为Bean
 public class TimeConfigServiceImpl extends ServiceImpl<TimeConfigMapper, TimeConfig> implements TimeConfigService {
 
+    @Value("${canteen.time-config.version-check-interval-ms:5000}")
+    private long versionCheckIntervalMs;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 当前配置快照（整体替换），及下一次版本检查的时间点
+    private final AtomicReference<TimeConfig> snapshot = new AtomicReference<>();
+    private final AtomicLong nextVersionCheck = new AtomicLong();
+    private final Object loadLock = new Object();
+
     @Override
     public String getOrderDeadlineCron() {
         TimeConfig config = getCurrentConfig();
@@ -31,33 +50,118 @@ public class TimeConfigServiceImpl extends ServiceImpl<TimeConfigMapper, TimeCon
         return "0 30 11 * * ?"; // 默认每天11:30
     }
 
+    /**
+     * 获取当前时间配置
+     * 配置缓存在内存快照中，正常情况下不访问数据库；每隔versionCheckIntervalMs由一个请求顺带查询一次版本号，
+     * 发现其他节点修改（或新增配置行）后重新加载。返回快照的副本，调用方修改不影响共享快照
+     */
     @Override
     public TimeConfig getCurrentConfig() {
-        LambdaQueryWrapper<TimeConfig> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.orderByDesc(TimeConfig::getUpdateTime).last("LIMIT 1");
-        TimeConfig config = baseMapper.selectOne(queryWrapper);
-        return config != null ? config : initDefaultConfig();
+        TimeConfig current = snapshot.get();
+        if (current == null) {
+            return copyOf(load(null, false));
+        }
+        long now = System.currentTimeMillis();
+        long due = nextVersionCheck.get();
+        // 同一检查周期内只有一个线程去查版本号，其余线程直接使用快照
+        if (now >= due && nextVersionCheck.compareAndSet(due, now + versionCheckIntervalMs)) {
+            TimeConfig latest = baseMapper.selectOne(new LambdaQueryWrapper<TimeConfig>()
+                    .select(TimeConfig::getId, TimeConfig::getVersion)
+                    .orderByDesc(TimeConfig::getUpdateTime)
+                    .last("LIMIT 1"));
+            if (latest == null || !Objects.equals(latest.getId(), current.getId())
+                    || !Objects.equals(latest.getVersion(), current.getVersion())) {
+                return copyOf(load(current, false));
+            }
+        }
+        return copyOf(current);
     }
 
+    /**
+     * 从数据库重新加载配置并替换快照（无配置时插入默认配置），配置有变化时发布TimeConfigChangedEvent
+     */
+    @Override
+    public TimeConfig reloadConfig() {
+        return copyOf(load(null, true));
+    }
+
+    /**
+     * 加载配置替换快照：非强制加载时，若等锁期间快照已被其他线程替换（不再是seen），直接使用新快照，不再重复查询；
+     * 变更事件在释放锁之后发布，监听器（菜单时段、定时任务重新调度）不在锁内执行
+     */
+    private TimeConfig load(TimeConfig seen, boolean force) {
+        TimeConfig config;
+        TimeConfig old;
+        synchronized (loadLock) {
+            old = snapshot.get();
+            if (!force && old != seen) {
+                return old;
+            }
+            LambdaQueryWrapper<TimeConfig> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.orderByDesc(TimeConfig::getUpdateTime).last("LIMIT 1");
+            config = baseMapper.selectOne(queryWrapper);
+            if (config == null) {
+                config = initDefaultConfig();
+            }
+            snapshot.set(config);
+            nextVersionCheck.set(System.currentTimeMillis() + versionCheckIntervalMs);
+        }
+        if (old == null || !Objects.equals(old.getId(), config.getId())
+                || !Objects.equals(old.getVersion(), config.getVersion())) {
+            log.info("时间配置已加载：id={}, version={}, orderDeadline={}, mealStartTime={}",
+                    config.getId(), config.getVersion(), config.getOrderDeadline(), config.getMealStartTime());
+            eventPublisher.publishEvent(new TimeConfigChangedEvent(copyOf(config)));
+        }
+        return config;
+    }
+
+    private static TimeConfig copyOf(TimeConfig config) {
+        TimeConfig copy = new TimeConfig();
+        copy.setId(config.getId());
+        copy.setOrderDeadline(config.getOrderDeadline());
+        copy.setMealStartTime(config.getMealStartTime());
+        copy.setUpdateTime(config.getUpdateTime() == null ? null : new Date(config.getUpdateTime().getTime()));
+        copy.setVersion(config.getVersion());
+        return copy;
+    }
+
+    /**
+     * 更新时间配置（版本号+1），成功后立即刷新本节点快照
+     */
     @Override
     public boolean updateConfig(TimeConfig timeConfig) {
         if (timeConfig == null || timeConfig.getId() == null) {
             return false;
         }
-        timeConfig.setUpdateTime(new Date());
-        return baseMapper.updateById(timeConfig) > 0;
+        LambdaUpdateWrapper<TimeConfig> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(TimeConfig::getId, timeConfig.getId())
+                .set(TimeConfig::getOrderDeadline, timeConfig.getOrderDeadline())
+                .set(TimeConfig::getMealStartTime, timeConfig.getMealStartTime())
+                .set(TimeConfig::getUpdateTime, new Date())
+                .setSql("version = version + 1");
+        boolean success = baseMapper.update(null, updateWrapper) > 0;
+        if (success) {
+            reloadConfig();
+        }
+        return success;
     }
 
+    /**
+     * 插入默认配置（INSERT IGNORE固定主键，多节点/多线程并发冷启动也只会有一条默认配置），返回当前最新配置
+     */
     @Override
     public TimeConfig initDefaultConfig() {
         TimeConfig defaultConfig = new TimeConfig();
         defaultConfig.setOrderDeadline("09:00:00");
         defaultConfig.setMealStartTime("11:30:00");
         defaultConfig.setUpdateTime(new Date());
-        if (baseMapper.insert(defaultConfig) > 0) {
-            return defaultConfig;
+        if (baseMapper.insertDefaultIfAbsent(defaultConfig) > 0) {
+            log.info("未找到时间配置，已插入默认配置");
         }
-        return null;
+        TimeConfig config = baseMapper.selectOne(new LambdaQueryWrapper<TimeConfig>()
+                .orderByDesc(TimeConfig::getUpdateTime)
+                .last("LIMIT 1"));
+        return config != null ? config : defaultConfig;
     }
 
     // 新增：时间转Cron表达式的工具方法
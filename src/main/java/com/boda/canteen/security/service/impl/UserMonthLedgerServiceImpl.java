@@ -0,0 +1,74 @@
+package com.boda.canteen.security.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+
+import com.boda.canteen.common.MyTimeUtils;
+import com.boda.canteen.entity.UserMonthLedger;
+import com.boda.canteen.mapper.UserMonthLedgerMapper;
+import com.boda.canteen.security.service.SaleDailyService;
+import com.boda.canteen.security.service.UserMonthLedgerService;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 员工月度账单：已日结的供餐日读userMonthLedger，尚未日结的读该员工订单明细（按唯一键userId+serviceDate范围读）
+ */
+@Service
+public class UserMonthLedgerServiceImpl extends ServiceImpl<UserMonthLedgerMapper, UserMonthLedger> implements UserMonthLedgerService {
+
+    private static final LocalDate MAX_DAY = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private SaleDailyService saleDailyService;
+
+    @Override
+    public Page<UserMonthLedger> pageStatement(Long userId, String month, Page<UserMonthLedger> page) {
+        month = StrUtil.emptyToNull(month);
+        return baseMapper.pageStatement(page, userId, month, begin(month), end(month), saleDailyService.closedThrough());
+    }
+
+    @Override
+    public List<UserMonthLedger> listStatement(Long userId, String month) {
+        month = StrUtil.emptyToNull(month);
+        return baseMapper.listStatement(userId, month, begin(month), end(month), saleDailyService.closedThrough());
+    }
+
+    @Override
+    public long sumStatement(Long userId, String month) {
+        month = StrUtil.emptyToNull(month);
+        return baseMapper.sumStatement(userId, month, begin(month), end(month), saleDailyService.closedThrough());
+    }
+
+    /**
+     * 游标须在同一连接上读完，放在只读事务中
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachStatement(Long userId, String month, Consumer<UserMonthLedger> consumer) {
+        month = StrUtil.emptyToNull(month);
+        LocalDate closedThrough = saleDailyService.closedThrough();
+        try (Cursor<UserMonthLedger> cursor = baseMapper.cursorStatement(userId, month, begin(month), end(month), closedThrough)) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LocalDate begin(String month) {
+        return month == null ? LocalDate.EPOCH : MyTimeUtils.getMonthFirstDay(month);
+    }
+
+    private LocalDate end(String month) {
+        return month == null ? MAX_DAY : MyTimeUtils.getMonthLastDay(month);
+    }
+}
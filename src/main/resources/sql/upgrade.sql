@@ -0,0 +1,249 @@
+-- =====================================================================
+-- canteen 数据库增量升级脚本（按顺序执行，已执行过的段落请勿重复执行）
+-- =====================================================================
+
+-- ---------------------------------------------------------------------
+-- 订单所属菜单时段：以时段结束日期（供餐日期）标识，同一用户同一时段仅一张订单
+-- ---------------------------------------------------------------------
+ALTER TABLE orderForm ADD COLUMN serviceDate DATE NULL COMMENT '供餐日期（所属菜单时段以该日orderDeadline结束）';
+
+-- 先建唯一键再回填：回填时与已回填行冲突的历史重复单被IGNORE跳过、暂时保持NULL（按orderId顺序，同一时段保留最早的一单），由下方合并处理
+ALTER TABLE orderForm ADD UNIQUE KEY uk_user_service_date (userId, serviceDate);
+
+-- 历史订单回填：orderDeadline之后下的单属于次日时段
+-- 注意：所有历史订单统一按当前time_config的order_deadline划分时段，此前修改过截止时间的日期可能归错供餐日
+SET @orderDeadline = (SELECT t.order_deadline FROM time_config t ORDER BY t.update_time DESC LIMIT 1);
+
+UPDATE IGNORE orderForm o
+SET o.serviceDate = IF(TIME(o.orderTime) > @orderDeadline, DATE(o.orderTime) + INTERVAL 1 DAY, DATE(o.orderTime))
+WHERE o.serviceDate IS NULL
+ORDER BY o.orderId;
+
+-- 同一员工同一时段的历史重复单：明细与金额并入该时段保留的订单，使销售日结与员工账单照常计入（已实际扣费的订单不能丢），
+-- 被合并的订单头记入orderFormMerged备查后删除
+CREATE TABLE IF NOT EXISTS orderFormMerged (
+    orderId     BIGINT NOT NULL COMMENT '被合并的历史重复订单',
+    mergedInto  BIGINT NOT NULL COMMENT '并入的订单（同一员工同一供餐日保留的订单）',
+    userId      BIGINT NULL,
+    name        VARCHAR(64) NULL,
+    orderTime   DATETIME NULL,
+    orderPrice  BIGINT NULL,
+    serviceDate DATE NOT NULL COMMENT '供餐日期',
+    mergeTime   DATETIME NOT NULL COMMENT '合并时间',
+    PRIMARY KEY (orderId),
+    KEY idx_merged_into (mergedInto)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='升级时合并的历史重复订单';
+
+INSERT INTO orderFormMerged (orderId, mergedInto, userId, name, orderTime, orderPrice, serviceDate, mergeTime)
+SELECT d.orderId, k.orderId, d.userId, d.name, d.orderTime, d.orderPrice, k.serviceDate, NOW()
+FROM orderForm d
+JOIN orderForm k ON k.userId = d.userId
+    AND k.serviceDate = IF(TIME(d.orderTime) > @orderDeadline, DATE(d.orderTime) + INTERVAL 1 DAY, DATE(d.orderTime))
+WHERE d.serviceDate IS NULL;
+
+UPDATE blanketOrder b JOIN orderFormMerged m ON m.orderId = b.orderId
+SET b.orderId = m.mergedInto;
+
+UPDATE orderForm k
+JOIN (SELECT mergedInto, SUM(COALESCE(orderPrice, 0)) AS mergedPrice FROM orderFormMerged GROUP BY mergedInto) m ON m.mergedInto = k.orderId
+SET k.orderPrice = COALESCE(k.orderPrice, 0) + m.mergedPrice;
+
+DELETE d FROM orderForm d JOIN orderFormMerged m ON m.orderId = d.orderId;
+
+-- 输出合并的重复单数量；unresolvedOrders须为0（下单时间为空等无法归属时段的订单），否则下一句失败，人工处理后再继续
+SELECT (SELECT COUNT(*) FROM orderFormMerged) AS mergedDuplicateOrders,
+       (SELECT COUNT(*) FROM orderForm WHERE serviceDate IS NULL) AS unresolvedOrders;
+
+-- 此后所有订单都有供餐日期，销售日结、员工账单与个人中心均按serviceDate读取
+ALTER TABLE orderForm MODIFY serviceDate DATE NOT NULL COMMENT '供餐日期（所属菜单时段以该日orderDeadline结束）';
+
+-- ---------------------------------------------------------------------
+-- 提前订餐：菜单、购物车按供餐日期区分，备餐汇总按供餐日期统计
+-- ---------------------------------------------------------------------
+ALTER TABLE menu ADD COLUMN serviceDate DATE NULL COMMENT '供餐日期（所属菜单时段以该日orderDeadline结束）';
+
+-- 历史菜单回填：createTime在orderDeadline之后的属于次日时段
+UPDATE menu m
+SET m.serviceDate = IF(TIME(m.createTime) > (SELECT t.order_deadline FROM time_config t ORDER BY t.update_time DESC LIMIT 1),
+                       DATE(m.createTime) + INTERVAL 1 DAY,
+                       DATE(m.createTime))
+WHERE m.serviceDate IS NULL;
+
+ALTER TABLE menu ADD INDEX idx_service_date (serviceDate);
+
+ALTER TABLE shopCart ADD COLUMN serviceDate DATE NULL COMMENT '供餐日期';
+
+-- 现有购物车均属于当前时段
+UPDATE shopCart
+SET serviceDate = IF(CURTIME() > (SELECT t.order_deadline FROM time_config t ORDER BY t.update_time DESC LIMIT 1),
+                     CURDATE() + INTERVAL 1 DAY,
+                     CURDATE())
+WHERE serviceDate IS NULL;
+
+ALTER TABLE shopCart ADD INDEX idx_user_service_date (userId, serviceDate);
+
+ALTER TABLE orderForm ADD INDEX idx_service_date (serviceDate);
+
+-- ---------------------------------------------------------------------
+-- 团体代订：仅开通代订权限的员工（部门助理）可为本部门同事代订，由管理员在用户修改页开通
+-- ---------------------------------------------------------------------
+ALTER TABLE myuser ADD COLUMN orderAgent TINYINT(1) NOT NULL DEFAULT 0 COMMENT '代订权限（部门助理）';
+
+-- ---------------------------------------------------------------------
+-- 时间配置版本号：各节点缓存配置，按版本号判断是否需要重新加载
+-- ---------------------------------------------------------------------
+ALTER TABLE time_config ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '配置版本号，每次修改+1';
+
+-- ---------------------------------------------------------------------
+-- 集群定时任务：多节点部署时按租约保证每个触发时刻只执行一次，并记录执行历史
+-- ---------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS jobLease (
+    jobName    VARCHAR(64) NOT NULL COMMENT '任务名称',
+    owner      VARCHAR(128) NOT NULL COMMENT '持有租约的节点',
+    fireTime   DATETIME NOT NULL COMMENT '本次触发的计划时间',
+    leaseUntil DATETIME(3) NOT NULL COMMENT '租约到期时间（执行期间续期）',
+    status     VARCHAR(16) NOT NULL COMMENT 'RUNNING / DONE',
+    PRIMARY KEY (jobName)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务租约';
+
+CREATE TABLE IF NOT EXISTS jobExecution (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    jobName    VARCHAR(64) NOT NULL COMMENT '任务名称',
+    fireTime   DATETIME NOT NULL COMMENT '触发的计划时间',
+    node       VARCHAR(128) NOT NULL COMMENT '执行节点',
+    startTime  DATETIME NOT NULL,
+    endTime    DATETIME NULL,
+    durationMs BIGINT NULL,
+    status     VARCHAR(16) NOT NULL COMMENT 'SUCCESS / FAILED',
+    errorMsg   VARCHAR(512) NULL,
+    PRIMARY KEY (id),
+    KEY idx_job_fire (jobName, fireTime),
+    KEY idx_node (node)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务执行记录';
+
+-- ---------------------------------------------------------------------
+-- 历史菜单快照：配餐开始时把当日菜品复制到historyDish，历史详情按供餐日期读取，不再依赖menu表中的原菜品
+-- ---------------------------------------------------------------------
+ALTER TABLE history ADD COLUMN serviceDate DATE NULL COMMENT '供餐日期';
+
+UPDATE history SET serviceDate = STR_TO_DATE(LEFT(timeRange, 10), '%Y-%m-%d') WHERE serviceDate IS NULL;
+
+ALTER TABLE history ADD INDEX idx_service_date (serviceDate);
+
+CREATE TABLE IF NOT EXISTS historyDish (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    serviceDate  DATE NOT NULL COMMENT '供餐日期',
+    menuId       BIGINT NOT NULL COMMENT '快照来源菜单',
+    name         VARCHAR(64) NULL,
+    category     VARCHAR(32) NULL,
+    unit         VARCHAR(16) NULL,
+    price        BIGINT NULL,
+    picture      VARCHAR(255) NULL,
+    snapshotTime DATETIME NOT NULL COMMENT '快照时间',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_service_date_menu (serviceDate, menuId)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='历史菜品快照';
+
+-- 已有历史记录回填：仅能恢复menu表中仍存在的菜品；history.menuIds不再写入，保留以便核对
+INSERT IGNORE INTO historyDish (serviceDate, menuId, name, category, unit, price, picture, snapshotTime)
+SELECT h.serviceDate, m.menuId, m.name, m.category, m.unit, m.price, m.picture, NOW()
+FROM history h
+JOIN menu m ON FIND_IN_SET(m.menuId, h.menuIds)
+WHERE h.serviceDate IS NOT NULL;
+
+-- menuIds不再写入，改为可空：旧库中该列若为NOT NULL，配餐开始时新增历史记录会插入失败（改为TEXT不会截断原有取值）
+ALTER TABLE history MODIFY menuIds TEXT NULL;
+
+-- ---------------------------------------------------------------------
+-- 销售日汇总：配餐开始时按供餐日期日结，月度统计与销售明细读汇总行，不再扫描订单明细
+-- ---------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS saleDishDaily (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    serviceDate DATE NOT NULL COMMENT '供餐日期',
+    name        VARCHAR(64) NOT NULL COMMENT '菜品名称',
+    unit        VARCHAR(16) NOT NULL COMMENT '计量单位',
+    price       BIGINT NOT NULL COMMENT '单价',
+    weight      BIGINT NOT NULL COMMENT '数量合计',
+    totalPrice  BIGINT NOT NULL COMMENT '金额合计',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_day_dish (serviceDate, name, unit, price)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='菜品日销售汇总';
+
+CREATE TABLE IF NOT EXISTS saleDaily (
+    serviceDate DATE NOT NULL COMMENT '供餐日期（存在即已日结）',
+    orderCount  BIGINT NOT NULL COMMENT '订单数',
+    totalPrice  BIGINT NOT NULL COMMENT '金额合计',
+    closeTime   DATETIME NOT NULL COMMENT '日结时间',
+    PRIMARY KEY (serviceDate)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日销售汇总';
+
+-- 回补今日之前的供餐日（今日及之后由日结任务处理）
+INSERT INTO saleDishDaily (serviceDate, name, unit, price, weight, totalPrice)
+SELECT o.serviceDate, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0), SUM(b.weight), SUM(b.totalPrice)
+FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId
+WHERE o.serviceDate < CURDATE()
+GROUP BY o.serviceDate, COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0);
+
+INSERT INTO saleDaily (serviceDate, orderCount, totalPrice, closeTime)
+SELECT o.serviceDate, COUNT(*), COALESCE((SELECT SUM(d.totalPrice) FROM saleDishDaily d WHERE d.serviceDate = o.serviceDate), 0), NOW()
+FROM orderForm o
+WHERE o.serviceDate < CURDATE()
+GROUP BY o.serviceDate;
+
+-- 对账：日汇总合计与订单明细直接合计（除今日及之后供餐日的订单外的全部明细，与升级前按明细统计的口径一致）比较，difference须为0；
+-- orphanLines为找不到订单的明细行数，这些明细不计入任何日汇总，须人工核对
+SELECT r.rollupTotal, d.detailTotal, d.detailTotal - r.rollupTotal AS difference, d.orphanLines
+FROM (SELECT COALESCE(SUM(totalPrice), 0) AS rollupTotal FROM saleDaily) r,
+     (SELECT COALESCE(SUM(b.totalPrice), 0) AS detailTotal,
+             COALESCE(SUM(NOT EXISTS (SELECT 1 FROM orderForm o WHERE o.orderId = b.orderId)), 0) AS orphanLines
+      FROM blanketOrder b
+      WHERE NOT EXISTS (SELECT 1 FROM orderForm o WHERE o.orderId = b.orderId AND o.serviceDate >= CURDATE())) d;
+
+-- 对账明细：日汇总与当日订单明细合计不一致的供餐日（应无结果）
+SELECT s.serviceDate, s.totalPrice AS rollupTotal, COALESCE(SUM(b.totalPrice), 0) AS detailTotal
+FROM saleDaily s
+LEFT JOIN orderForm o ON o.serviceDate = s.serviceDate
+LEFT JOIN blanketOrder b ON b.orderId = o.orderId
+GROUP BY s.serviceDate, s.totalPrice
+HAVING s.totalPrice <> COALESCE(SUM(b.totalPrice), 0);
+
+-- ---------------------------------------------------------------------
+-- 员工月度账单：销售日结时按员工+月份+菜品累加，月度明细、个人中心与账单导出按userId+month索引读取
+-- ---------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS userMonthLedger (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    userId     BIGINT NOT NULL COMMENT '员工',
+    month      CHAR(7) NOT NULL COMMENT '月份YYYY-MM（按供餐日期）',
+    name       VARCHAR(64) NOT NULL COMMENT '菜品名称',
+    unit       VARCHAR(16) NOT NULL COMMENT '计量单位',
+    price      BIGINT NOT NULL COMMENT '单价',
+    weight     BIGINT NOT NULL COMMENT '数量合计',
+    totalPrice BIGINT NOT NULL COMMENT '金额合计',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_user_month_dish (userId, month, name, unit, price)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='员工月度账单';
+
+-- 回补已日结的供餐日（与saleDaily一致）
+INSERT INTO userMonthLedger (userId, month, name, unit, price, weight, totalPrice)
+SELECT o.userId, DATE_FORMAT(o.serviceDate, '%Y-%m'), COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0),
+       SUM(b.weight), SUM(b.totalPrice)
+FROM orderForm o JOIN blanketOrder b ON b.orderId = o.orderId
+WHERE o.serviceDate <= (SELECT MAX(serviceDate) FROM saleDaily)
+GROUP BY o.userId, DATE_FORMAT(o.serviceDate, '%Y-%m'), COALESCE(b.name, ''), COALESCE(b.unit, ''), COALESCE(b.price, 0);
+
+-- 对账：各月员工账单合计须与同月日汇总合计一致（升级时并入的历史重复单计入保留订单所属员工的账单），应无结果
+SELECT s.month, s.saleTotal, COALESCE(l.ledgerTotal, 0) AS ledgerTotal
+FROM (SELECT DATE_FORMAT(serviceDate, '%Y-%m') AS month, SUM(totalPrice) AS saleTotal FROM saleDaily GROUP BY DATE_FORMAT(serviceDate, '%Y-%m')) s
+LEFT JOIN (SELECT month, SUM(totalPrice) AS ledgerTotal FROM userMonthLedger GROUP BY month) l ON l.month = s.month
+WHERE s.saleTotal <> COALESCE(l.ledgerTotal, 0);
+
+-- ---------------------------------------------------------------------
+-- 数据版本号：菜单、食谱、历史菜单每次修改+1，读接口据此生成ETag（条件GET返回304），各节点菜单快照据此失效
+-- ---------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS dataVersion (
+    name    VARCHAR(64) NOT NULL COMMENT '表名',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '版本号',
+    PRIMARY KEY (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据版本号';
+
+INSERT IGNORE INTO dataVersion (name, version) VALUES ('menu', 1), ('recipe', 1), ('history', 1);
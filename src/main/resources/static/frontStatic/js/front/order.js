@@ -6,8 +6,10 @@ $(document).ready(function () {
         var data = {
             "orderPrice": totalPrice
         }
+        // 提前订餐时提交到对应的供餐日期
+        var serviceDate = $(this).data("service-date");
         $.ajax({
-            url: path + "/order/submit",
+            url: path + "/order/submit" + (serviceDate ? "?serviceDate=" + serviceDate : ""),
             type: "POST",
             data: JSON.stringify(data),
             dataType: 'json',
@@ -0,0 +1,267 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.MenuWindow;
+import com.boda.canteen.common.MyTimeUtils;
+import com.boda.canteen.controller.DynamicScheduleTaskManager;
+import com.boda.canteen.entity.TimeConfig;
+import com.boda.canteen.security.service.TimeConfigService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一天的时间旅行：用模拟时钟快进业务时间，在各阶段触发定时任务并请求点餐接口
+ * 阶段：截止前下单 → orderDeadline（拦截、清空购物车）→ mealStartTime（统计菜单、恢复点单）→ 零点跨月（月度销售）
+ * 使用当前生效的时间配置；业务日期固定为某月最后一天，以便覆盖跨月
+ * 每个阶段输出耗时，可作为各阶段接口与任务的基准
+ * 运行方式：mvn test -Ptimetravel
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("timetravel")
+@Import(DayTimeTravelTest.SimulatedClockConfig.class)
+@EnabledIfSystemProperty(named = "canteen.timetravel", matches = "true")
+public class DayTimeTravelTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 31);
+    private static final String USER_PREFIX = "timetravel_";
+    private static final String PASSWORD = "123456";
+
+    @TestConfiguration
+    static class SimulatedClockConfig {
+        @Bean
+        @Primary
+        public SimulatedClock simulatedClock() {
+            return new SimulatedClock();
+        }
+    }
+
+    /**
+     * 可手动设置的时钟（未设置时与系统时间一致）
+     */
+    static class SimulatedClock extends Clock {
+        private volatile Instant instant;
+
+        void set(LocalDateTime time) {
+            instant = time.atZone(getZone()).toInstant();
+        }
+
+        void reset() {
+            instant = null;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            Instant i = instant;
+            return i == null ? Instant.now() : i;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimulatedClock clock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TimeConfigService timeConfigService;
+
+    @Autowired
+    private MenuWindow menuWindow;
+
+    @Autowired
+    private DynamicScheduleTaskManager scheduleTaskManager;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<String> timings = new ArrayList<>();
+    private Long maxHistoryId;
+    private Long maxSaleId;
+
+    @BeforeEach
+    public void setUp() {
+        cleanup();
+        maxHistoryId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(hisId), 0) FROM history", Long.class);
+        maxSaleId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(saleId), 0) FROM sale", Long.class);
+        String encoded = passwordEncoder.encode(PASSWORD);
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("INSERT INTO myuser (name, username, password, telephone, department, role, workInformation) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)", "时间旅行员工" + i, USER_PREFIX + i, encoded, "13800000000", "测试部门", "staff", "工位" + i);
+        }
+        jdbcTemplate.update("INSERT INTO menu (name, category, unit, price, createTime, serviceDate) VALUES (?, ?, ?, ?, ?, ?)",
+                "时间旅行菜品", "主食", "份", 12, DAY.minusDays(1).atTime(12, 0), DAY);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        clock.reset();
+        menuWindow.reload();
+        String users = "SELECT userId FROM myuser WHERE username LIKE '" + USER_PREFIX + "%'";
+        jdbcTemplate.update("DELETE FROM blanketOrder WHERE orderId IN (SELECT orderId FROM orderForm WHERE userId IN (" + users + "))");
+        jdbcTemplate.update("DELETE FROM orderForm WHERE userId IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM shopCart WHERE userId IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM myuser WHERE username LIKE '" + USER_PREFIX + "%'");
+        jdbcTemplate.update("DELETE FROM menu WHERE name = '时间旅行菜品'");
+        jdbcTemplate.update("DELETE FROM historyDish WHERE name = '时间旅行菜品'");
+        // 只删除本次运行中定时任务生成的记录
+        if (maxHistoryId != null) {
+            jdbcTemplate.update("DELETE FROM history WHERE hisId > ?", maxHistoryId);
+            jdbcTemplate.update("DELETE FROM sale WHERE saleId > ?", maxSaleId);
+        }
+    }
+
+    @Test
+    public void wholeDay() throws Exception {
+        TimeConfig config = timeConfigService.getCurrentConfig();
+        LocalDateTime deadline = DAY.atTime(LocalTime.parse(config.getOrderDeadline(), MyTimeUtils.LENIENT_TIME_FORMATTER));
+        LocalDateTime mealStart = DAY.atTime(LocalTime.parse(config.getMealStartTime(), MyTimeUtils.LENIENT_TIME_FORMATTER));
+
+        lastLap = System.nanoTime();
+        // 1. 截止前1秒：员工0加购并提交，重复提交被拒绝；员工1只加购不提交
+        travel(deadline.minusSeconds(1));
+        String staff0 = login(0);
+        String staff1 = login(1);
+        assertOk(post("/shopCart/add", "{\"name\":\"时间旅行菜品\",\"unit\":\"份\",\"weight\":2,\"price\":12}", staff0));
+        assertOk(post("/order/submit", "{\"orderPrice\":24}", staff0));
+        assertFail(post("/order/submit", "{\"orderPrice\":24}", staff0), "同一供餐日仅可提交一次订单");
+        assertOk(post("/shopCart/add", "{\"name\":\"时间旅行菜品\",\"unit\":\"份\",\"weight\":1,\"price\":12}", staff1));
+        Assertions.assertEquals(DAY, menuWindow.current().getCurrentServiceDate());
+        lap("截止前");
+
+        // 2. orderDeadline：进入配送时段，提交被拦截；截止任务清空当日购物车
+        travel(deadline);
+        assertFail(post("/order/submit", "{\"orderPrice\":12}", staff1), "配送时间段");
+        scheduleTaskManager.clearShopCart();
+        Assertions.assertEquals(0, countCarts(1, DAY));
+        lap("orderDeadline");
+
+        // 3. 截止后1秒：当前时段切换到次日，仍处于配送时段；加购计入次日
+        travel(deadline.plusSeconds(1));
+        Assertions.assertEquals(DAY.plusDays(1), menuWindow.current().getCurrentServiceDate());
+        assertOk(post("/shopCart/add", "{\"name\":\"时间旅行菜品\",\"unit\":\"份\",\"weight\":1,\"price\":12}", staff1));
+        Assertions.assertEquals(1, countCarts(1, DAY.plusDays(1)));
+        assertFail(post("/order/submit", "{\"orderPrice\":12}", staff1), "配送时间段");
+        lap("截止后");
+
+        // 4. mealStartTime：统计当日菜单，此刻仍禁止提交；1秒后恢复
+        travel(mealStart);
+        scheduleTaskManager.addHistoryMenu();
+        Integer collected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM history WHERE hisId > ? AND serviceDate = ?",
+                Integer.class, maxHistoryId, DAY);
+        Assertions.assertEquals(1, collected);
+        Integer dishes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historyDish WHERE serviceDate = ? AND name = '时间旅行菜品'",
+                Integer.class, DAY);
+        Assertions.assertEquals(1, dishes);
+        assertFail(post("/order/submit", "{\"orderPrice\":12}", staff1), "配送时间段");
+        travel(mealStart.plusSeconds(1));
+        Assertions.assertFalse(menuWindow.current().isInDeliveryPeriod());
+        lap("mealStartTime");
+
+        // 5. 次日零点（跨月）：月度销售统计上月订单，员工1提交次日订单
+        travel(DAY.plusDays(1).atStartOfDay());
+        scheduleTaskManager.addMonthSale();
+        Long total = jdbcTemplate.queryForObject("SELECT totalPrice FROM sale WHERE saleId > ? AND month = ?",
+                Long.class, maxSaleId, DAY.toString().substring(0, 7));
+        Assertions.assertEquals(24L, total);
+        assertOk(post("/order/submit", "{\"orderPrice\":12}", staff1));
+        Integer orders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orderForm WHERE serviceDate = ? AND userId = "
+                + "(SELECT userId FROM myuser WHERE username = ?)", Integer.class, DAY.plusDays(1), USER_PREFIX + 1);
+        Assertions.assertEquals(1, orders);
+        lap("跨月零点");
+
+        System.out.println("===== 时间旅行：" + DAY + "，orderDeadline=" + config.getOrderDeadline()
+                + "，mealStartTime=" + config.getMealStartTime() + " =====");
+        System.out.println("阶段 | 耗时(ms)");
+        timings.forEach(System.out::println);
+    }
+
+    private long lastLap = System.nanoTime();
+
+    private void travel(LocalDateTime time) {
+        clock.set(time);
+    }
+
+    private void lap(String phase) {
+        long now = System.nanoTime();
+        timings.add(phase + " | " + String.format("%.1f", (now - lastLap) / 1e6));
+        lastLap = now;
+    }
+
+    private int countCarts(int index, LocalDate serviceDate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM shopCart WHERE serviceDate = ? AND userId = "
+                + "(SELECT userId FROM myuser WHERE username = ?)", Integer.class, serviceDate, USER_PREFIX + index);
+    }
+
+    private void assertOk(HttpResponse<String> response) {
+        Assertions.assertTrue(response.body().contains("\"code\":200"), response.body());
+    }
+
+    private void assertFail(HttpResponse<String> response, String message) {
+        Assertions.assertFalse(response.body().contains("\"code\":200"), response.body());
+        Assertions.assertTrue(response.body().contains(message), response.body());
+    }
+
+    private String login(int index) throws Exception {
+        String form = "username=" + URLEncoder.encode(USER_PREFIX + index, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(uri("/login/userLogin"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("JSESSIONID="))
+                .map(c -> c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("登录失败：" + response.body()));
+    }
+
+    private HttpResponse<String> post(String path, String body, String cookie) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .header("Cookie", cookie)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,264 @@
+package com.boda.canteen;
+
+import com.boda.canteen.security.service.TimeConfigService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 截止前高峰压测（模拟08:55~09:00的下单洪峰）
+ * 1. 创建N个压测员工，并临时插入一条time_config，使orderDeadline恰好落在压测结束时刻
+ * 2. 员工的开始时间按线性递增的到达密度分布，越接近orderDeadline到达越密集
+ * 3. 每个员工：/login/userLogin（压测环境关闭验证码）→ 多次/shopCart/add → /order/submit
+ * 4. 输出各接口吞吐与p50/p95/p99延迟，以及期间数据库的查询次数（SHOW GLOBAL STATUS差值）
+ * 结束后删除压测员工、订单、购物车和临时时间配置
+ * 运行方式：mvn test -Ploadtest [-Dloadtest.users=500 -Dloadtest.rampSeconds=60 -Dloadtest.items=3]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "canteen.loadtest", matches = "true")
+public class DeadlineRushLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 200);
+    private static final int RAMP_SECONDS = Integer.getInteger("loadtest.rampSeconds", 30);
+    private static final int ITEMS_PER_USER = Integer.getInteger("loadtest.items", 3);
+    private static final String USER_PREFIX = "loadtest_";
+    private static final String PASSWORD = "123456";
+    private static final String[] STATUS_NAMES = {"Questions", "Com_select", "Com_insert", "Com_update", "Com_delete"};
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TimeConfigService timeConfigService;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private Long timeConfigId;
+    private LocalTime deadline;
+
+    @BeforeEach
+    public void setUp() {
+        cleanup();
+        // 压测员工（密码统一加密一次）
+        String encoded = passwordEncoder.encode(PASSWORD);
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"压测员工" + i, USER_PREFIX + i, encoded, "13800000000", "压测部门", "staff", "压测工位" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO myuser (name, username, password, telephone, department, role, workInformation) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", users);
+
+        // 临时时间配置：orderDeadline = 压测结束时刻，update_time取最新，使其成为当前配置
+        deadline = LocalTime.now().plusSeconds(RAMP_SECONDS + 5L).withNano(0);
+        Assertions.assertTrue(deadline.isAfter(LocalTime.now()), "压测时间段跨越午夜，请稍后再运行");
+        jdbcTemplate.update("INSERT INTO time_config (order_deadline, meal_start_time, update_time) "
+                        + "SELECT ?, ?, GREATEST(NOW(), COALESCE(MAX(update_time), NOW())) + INTERVAL 1 SECOND FROM time_config",
+                deadline.format(TIME), deadline.plusMinutes(30).format(TIME));
+        timeConfigId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM time_config", Long.class);
+        timeConfigService.reloadConfig();
+
+        stats.put("login", new EndpointStats());
+        stats.put("shopCart/add", new EndpointStats());
+        stats.put("order/submit", new EndpointStats());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        String users = "SELECT userId FROM myuser WHERE username LIKE '" + USER_PREFIX + "%'";
+        jdbcTemplate.update("DELETE FROM blanketOrder WHERE orderId IN (SELECT orderId FROM orderForm WHERE userId IN (" + users + "))");
+        jdbcTemplate.update("DELETE FROM orderForm WHERE userId IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM shopCart WHERE userId IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM myuser WHERE username LIKE '" + USER_PREFIX + "%'");
+        if (timeConfigId != null) {
+            jdbcTemplate.update("DELETE FROM time_config WHERE id = ?", timeConfigId);
+            timeConfigId = null;
+            timeConfigService.reloadConfig();
+        }
+    }
+
+    @Test
+    public void rushBeforeDeadline() throws Exception {
+        Map<String, Long> statusBefore = globalStatus();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Math.min(USERS, 512));
+        List<ScheduledFuture<?>> futures = new ArrayList<>(USERS);
+        long begin = System.nanoTime();
+        for (int i = 0; i < USERS; i++) {
+            // 到达密度随时间线性上升：累计分布F(t)=(t/T)²，反解得 t = T·√u
+            double u = (i + 0.5) / USERS;
+            long offsetMs = (long) (RAMP_SECONDS * 1000 * Math.sqrt(u));
+            int index = i;
+            futures.add(scheduler.schedule(() -> runEmployee(index), offsetMs, TimeUnit.MILLISECONDS));
+        }
+        for (ScheduledFuture<?> future : futures) {
+            future.get();
+        }
+        double elapsedSeconds = (System.nanoTime() - begin) / 1e9;
+        scheduler.shutdown();
+        Map<String, Long> statusAfter = globalStatus();
+
+        Integer savedOrders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orderForm WHERE userId IN "
+                + "(SELECT userId FROM myuser WHERE username LIKE '" + USER_PREFIX + "%')", Integer.class);
+
+        System.out.println("===== 截止前高峰压测：" + USERS + "名员工，" + RAMP_SECONDS + "秒内到达，orderDeadline="
+                + deadline.format(TIME) + "，每人" + ITEMS_PER_USER + "道菜 =====");
+        System.out.println("接口 | 请求数 | 成功 | 429拒绝 | 失败 | 吞吐(次/秒) | p50(ms) | p95(ms) | p99(ms) | max(ms)");
+        for (Map.Entry<String, EndpointStats> e : stats.entrySet()) {
+            System.out.println(e.getKey() + " | " + e.getValue().summary(elapsedSeconds));
+            e.getValue().failures.forEach((msg, count) -> System.out.println("    失败 ×" + count + "：" + msg));
+        }
+        System.out.println("数据库计数（全局差值，含压测自身少量查询）：");
+        for (String name : STATUS_NAMES) {
+            long delta = statusAfter.getOrDefault(name, 0L) - statusBefore.getOrDefault(name, 0L);
+            System.out.println(String.format("  %s = %d（每笔入库订单 %.1f）", name, delta,
+                    savedOrders == null || savedOrders == 0 ? 0.0 : (double) delta / savedOrders));
+        }
+        System.out.println("入库订单数：" + savedOrders + "，总耗时：" + String.format("%.1f", elapsedSeconds) + "秒");
+
+        Assertions.assertEquals(0, stats.get("login").errors.size(), "登录出现传输错误：" + stats.get("login").errors);
+        Assertions.assertTrue(savedOrders != null && savedOrders > 0, "没有任何订单入库");
+    }
+
+    /**
+     * 单个员工的完整下单流程
+     */
+    private void runEmployee(int index) {
+        String cookie = login(index);
+        if (cookie == null) {
+            return;
+        }
+        for (int i = 0; i < ITEMS_PER_USER; i++) {
+            String body = "{\"name\":\"压测菜品" + i + "\",\"unit\":\"份\",\"weight\":1,\"price\":" + (10 + i) + "}";
+            send("shopCart/add", jsonPost("/shopCart/add", body, cookie));
+        }
+        send("order/submit", jsonPost("/order/submit", "{\"orderPrice\":" + (10 * ITEMS_PER_USER + 3) + "}", cookie));
+    }
+
+    private String login(int index) {
+        String form = "username=" + URLEncoder.encode(USER_PREFIX + index, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(uri("/login/userLogin"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        HttpResponse<String> response = send("login", request);
+        if (response == null) {
+            return null;
+        }
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("JSESSIONID="))
+                .map(c -> c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length()))
+                .findFirst().orElse(null);
+    }
+
+    private HttpRequest jsonPost(String path, String body, String cookie) {
+        return HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Cookie", cookie)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) {
+        EndpointStats s = stats.get(endpoint);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            s.record(System.nanoTime() - start, response.statusCode(), response.body());
+            return response;
+        } catch (Exception e) {
+            s.errors.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Map<String, Long> globalStatus() {
+        Map<String, Long> map = new HashMap<>();
+        jdbcTemplate.query("SHOW GLOBAL STATUS WHERE Variable_name IN ('" + String.join("','", STATUS_NAMES) + "')",
+                rs -> {
+                    map.put(rs.getString(1), rs.getLong(2));
+                });
+        return map;
+    }
+
+    /**
+     * 单个接口的延迟与结果统计
+     */
+    private static class EndpointStats {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        private final Queue<Integer> outcomes = new ConcurrentLinkedQueue<>();
+        // 按失败信息分组计数，便于区分截止拦截、重复提交等原因
+        private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+        // 结果：0=成功，1=429拒绝，2=业务失败或其他HTTP错误
+        void record(long nanos, int status, String body) {
+            latencies.add(nanos);
+            if (status == 429) {
+                outcomes.add(1);
+            } else if (status == 200 && body != null && body.contains("\"code\":200")) {
+                outcomes.add(0);
+            } else {
+                outcomes.add(2);
+                String msg = body == null ? "" : body.replaceAll(".*\"msg\":\"([^\"]*)\".*", "$1");
+                failures.merge(status + " " + (msg.length() > 60 ? msg.substring(0, 60) : msg), 1, Integer::sum);
+            }
+        }
+
+        String summary(double elapsedSeconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            int[] counts = new int[3];
+            outcomes.forEach(o -> counts[o]++);
+            return String.format("%d | %d | %d | %d | %.1f | %.1f | %.1f | %.1f | %.1f",
+                    sorted.length + errors.size(), counts[0], counts[1], counts[2] + errors.size(),
+                    sorted.length / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int idx = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, idx)] / 1e6;
+        }
+    }
+}
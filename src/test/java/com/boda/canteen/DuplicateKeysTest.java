@@ -0,0 +1,37 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.DuplicateKeys;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * 唯一约束冲突区分：供餐日唯一键冲突（重复下单）与主键冲突（订单号碰撞）不能混为一谈
+ */
+public class DuplicateKeysTest {
+
+    @Test
+    public void serviceDateKeyIsRecognised() {
+        // MariaDB / MySQL 5.7
+        Assertions.assertTrue(DuplicateKeys.violates(
+                duplicate("Duplicate entry '5-2026-01-05' for key 'uk_user_service_date'"), DuplicateKeys.ORDER_SERVICE_DATE));
+        // MySQL 8
+        Assertions.assertTrue(DuplicateKeys.violates(
+                duplicate("Duplicate entry '5-2026-01-05' for key 'orderForm.uk_user_service_date'"), DuplicateKeys.ORDER_SERVICE_DATE));
+    }
+
+    @Test
+    public void primaryKeyCollisionIsNotADuplicateOrder() {
+        Assertions.assertFalse(DuplicateKeys.violates(
+                duplicate("Duplicate entry '370118846788403200' for key 'PRIMARY'"), DuplicateKeys.ORDER_SERVICE_DATE));
+        Assertions.assertFalse(DuplicateKeys.violates(
+                duplicate("Duplicate entry '370118846788403200' for key 'orderForm.PRIMARY'"), DuplicateKeys.ORDER_SERVICE_DATE));
+    }
+
+    private DuplicateKeyException duplicate(String message) {
+        return new DuplicateKeyException("### Error updating database",
+                new SQLIntegrityConstraintViolationException(message));
+    }
+}
@@ -0,0 +1,60 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.GroupOrderRequest;
+import com.boda.canteen.controller.OrderController;
+import com.boda.canteen.entity.MyUser;
+import com.boda.canteen.exception.CustomException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 团体代订权限：普通员工即使有部门也不能代订，开通代订权限（assistant）的员工与管理员可以
+ */
+@SpringBootTest
+public class GroupOrderAccessTest {
+
+    @Autowired
+    private OrderController orderController;
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void plainStaffIsRejected() {
+        MockHttpServletRequest request = loginAs("ROLE_staff");
+        Assertions.assertThrows(AccessDeniedException.class,
+                () -> orderController.groupSubmit(new GroupOrderRequest(), null, request));
+    }
+
+    @Test
+    public void assistantAndManagerPassTheRoleCheck() {
+        for (String[] roles : new String[][]{{"ROLE_staff", "ROLE_assistant"}, {"ROLE_manager"}}) {
+            MockHttpServletRequest request = loginAs(roles);
+            // 通过权限校验后才会执行方法体中的名单校验
+            CustomException e = Assertions.assertThrows(CustomException.class,
+                    () -> orderController.groupSubmit(new GroupOrderRequest(), null, request));
+            Assertions.assertEquals("代订名单为空", e.getMessage());
+        }
+    }
+
+    private MockHttpServletRequest loginAs(String... authorities) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "grouptest", null, AuthorityUtils.createAuthorityList(authorities)));
+        MyUser user = new MyUser();
+        user.setUserId(-1L);
+        user.setDepartment("技术部");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute("currUser", user);
+        return request;
+    }
+}
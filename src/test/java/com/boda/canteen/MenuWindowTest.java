@@ -0,0 +1,79 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.MenuWindow;
+import com.boda.canteen.common.MyTimeUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * 菜单时段快照：边界判断与原有逐请求计算逻辑一致，且有效区间恰好止于下一个边界
+ */
+public class MenuWindowTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    public void beforeDeadlineBelongsToToday() {
+        MenuWindow.Snapshot s = MenuWindow.of(millis(8, 0, 0, 0), "9:00:00", "11:30:00");
+        Assertions.assertEquals(DAY, s.getCurrentServiceDate());
+        Assertions.assertFalse(s.isInDeliveryPeriod());
+        Assertions.assertEquals(millis(-13, 30, 0, 0), s.getCurrentStart().getTime());
+        Assertions.assertEquals(millis(9, 0, 0, 0), s.getCurrentEnd().getTime());
+        Assertions.assertEquals(millis(11, 30, 0, 0), s.getNextStart().getTime());
+        Assertions.assertEquals(millis(9, 0, 0, 0), s.getValidUntil());
+        Assertions.assertEquals("09:00:00", s.getOrderDeadline());
+    }
+
+    @Test
+    public void boundariesFollowTheBusinessClockZone() {
+        // 业务时钟与系统时区不同：10:00（UTC+14）已过截止，但按系统时区（UTC等）计算仍在截止之前
+        ZoneId zone = ZoneId.of("Pacific/Kiritimati");
+        Clock clock = Clock.fixed(LocalDateTime.of(DAY, LocalTime.of(10, 0)).atZone(zone).toInstant(), zone);
+        MyTimeUtils.setClock(clock);
+        try {
+            MenuWindow.Snapshot s = MenuWindow.of(clock.millis(), "09:00:00", "11:30:00");
+            Assertions.assertEquals(MyTimeUtils.getCurrentServiceDate("09:00:00"), s.getCurrentServiceDate());
+            Assertions.assertEquals(DAY.plusDays(1), s.getCurrentServiceDate());
+            Assertions.assertTrue(s.isInDeliveryPeriod());
+            Assertions.assertEquals(DAY.plusDays(1).atTime(9, 0).atZone(zone).toInstant().toEpochMilli(), s.getCurrentEnd().getTime());
+        } finally {
+            MyTimeUtils.setClock(null);
+        }
+    }
+
+    @Test
+    public void deadlineBoundaries() {
+        // 截止时刻本身：仍属本日时段，但已进入配送时段
+        MenuWindow.Snapshot atDeadline = MenuWindow.of(millis(9, 0, 0, 0), "09:00:00", "11:30:00");
+        Assertions.assertEquals(DAY, atDeadline.getCurrentServiceDate());
+        Assertions.assertTrue(atDeadline.isInDeliveryPeriod());
+        Assertions.assertEquals(millis(9, 0, 0, 1), atDeadline.getValidUntil());
+
+        // 截止之后：切换到次日时段
+        MenuWindow.Snapshot afterDeadline = MenuWindow.of(millis(10, 0, 0, 0), "09:00:00", "11:30:00");
+        Assertions.assertEquals(DAY.plusDays(1), afterDeadline.getCurrentServiceDate());
+        Assertions.assertTrue(afterDeadline.isInDeliveryPeriod());
+        Assertions.assertEquals(millis(11, 30, 0, 1), afterDeadline.getValidUntil());
+
+        // 配餐开始时刻仍禁止点单，之后恢复
+        Assertions.assertTrue(MenuWindow.of(millis(11, 30, 0, 0), "09:00:00", "11:30:00").isInDeliveryPeriod());
+        MenuWindow.Snapshot afternoon = MenuWindow.of(millis(11, 30, 0, 1), "09:00:00", "11:30:00");
+        Assertions.assertFalse(afternoon.isInDeliveryPeriod());
+        Assertions.assertEquals(millis(24, 0, 0, 0), afternoon.getValidUntil());
+        Assertions.assertTrue(afternoon.inCurrentWindow(millis(11, 30, 0, 0)));
+        Assertions.assertTrue(afternoon.inCurrentWindow(millis(33, 0, 0, 0)));
+        Assertions.assertFalse(afternoon.inCurrentWindow(millis(9, 0, 0, 0)));
+    }
+
+    private static long millis(int hour, int minute, int second, int milli) {
+        LocalDateTime time = DAY.atStartOfDay().plusHours(hour).plusMinutes(minute).plusSeconds(second)
+                .plusNanos(milli * 1_000_000L);
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,109 @@
+package com.boda.canteen;
+
+import com.boda.canteen.entity.BlanketOrder;
+import com.boda.canteen.security.service.BlanketOrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 订单明细写入基准：逐行save vs 多行VALUES批量插入
+ * 每轮在独立事务中写入一张订单的全部明细，结束后回滚，不污染数据
+ * 运行方式：mvn test -Pbench
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "canteen.bench", matches = "true")
+public class OrderDetailBatchBenchmarkTest {
+
+    private static final int[] LINE_COUNTS = {1, 5, 20};
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURE_ROUNDS = 300;
+    private static final int CONCURRENCY = 8;
+
+    @Autowired
+    private BlanketOrderService blanketOrderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void compareLoopAndBatch() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        System.out.println("===== 订单明细写入基准（每轮一个事务，结束后回滚） =====");
+        System.out.println("明细行数 | 写入方式 | 平均延迟(ms) | p95(ms) | 单线程吞吐(单/秒) | " + CONCURRENCY + "线程吞吐(单/秒)");
+        for (int lines : LINE_COUNTS) {
+            run(tx, lines, "逐行save", list -> list.forEach(blanketOrderService::save));
+            run(tx, lines, "批量insert", blanketOrderService::insertBatch);
+        }
+    }
+
+    private void run(TransactionTemplate tx, int lines, String label, Consumer<List<BlanketOrder>> writer) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            writeOnce(tx, lines, writer);
+        }
+
+        // 单线程：延迟分布
+        long[] costs = new long[MEASURE_ROUNDS];
+        long begin = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            writeOnce(tx, lines, writer);
+            costs[i] = System.nanoTime() - start;
+        }
+        long total = System.nanoTime() - begin;
+        Arrays.sort(costs);
+        double avgMs = total / 1e6 / MEASURE_ROUNDS;
+        double p95Ms = costs[(int) (MEASURE_ROUNDS * 0.95) - 1] / 1e6;
+        double serialTps = MEASURE_ROUNDS / (total / 1e9);
+
+        // 多线程：吞吐
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        long concurrentBegin = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            pool.submit(() -> writeOnce(tx, lines, writer));
+        }
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.MINUTES);
+        double concurrentTps = MEASURE_ROUNDS / ((System.nanoTime() - concurrentBegin) / 1e9);
+
+        System.out.println(String.format("%d | %s | %.3f | %.3f | %.1f | %.1f",
+                lines, label, avgMs, p95Ms, serialTps, concurrentTps));
+    }
+
+    private void writeOnce(TransactionTemplate tx, int lines, Consumer<List<BlanketOrder>> writer) {
+        List<BlanketOrder> list = buildLines(lines);
+        tx.executeWithoutResult(status -> {
+            writer.accept(list);
+            status.setRollbackOnly();
+        });
+    }
+
+    private List<BlanketOrder> buildLines(int lines) {
+        Date now = new Date();
+        List<BlanketOrder> list = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            BlanketOrder bo = new BlanketOrder();
+            bo.setName("基准菜品" + i);
+            bo.setUnit("份");
+            bo.setWeight(1);
+            bo.setPrice(10L);
+            bo.setTotalPrice(10L);
+            bo.setOrderId(-1L);
+            bo.setCreateTime(now);
+            list.add(bo);
+        }
+        return list;
+    }
+}
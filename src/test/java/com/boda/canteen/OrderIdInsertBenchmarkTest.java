@@ -0,0 +1,111 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.IdGenerator;
+import com.boda.canteen.common.RandomIdGenerator;
+import com.boda.canteen.common.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单号策略基准：随机ID vs 雪花ID
+ * 分别向orderForm/blanketOrder的临时副本插入相同数量的订单和明细，对比插入吞吐、索引页分裂次数和索引体积
+ * 页分裂次数取自information_schema.INNODB_METRICS（index_page_splits），无权限开启时显示为-1
+ * 运行方式：mvn test -Pbench
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "canteen.bench", matches = "true")
+public class OrderIdInsertBenchmarkTest {
+
+    private static final int ORDERS = 20_000;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int BATCH = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void compareRandomAndSnowflake() {
+        enablePageSplitMetric();
+        System.out.println("===== 订单号策略插入基准（" + ORDERS + "单，每单" + LINES_PER_ORDER + "条明细） =====");
+        System.out.println("策略 | 耗时(ms) | 订单吞吐(单/秒) | 页分裂次数 | orderForm数据(KB) | blanketOrder索引(KB)");
+        run("random", new RandomIdGenerator());
+        run("snowflake", new SnowflakeIdGenerator(0));
+    }
+
+    private void run(String label, IdGenerator generator) {
+        String orderTable = "bench_orderForm_" + label;
+        String detailTable = "bench_blanketOrder_" + label;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + orderTable);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + detailTable);
+        jdbcTemplate.execute("CREATE TABLE " + orderTable + " LIKE orderForm");
+        jdbcTemplate.execute("CREATE TABLE " + detailTable + " LIKE blanketOrder");
+        try {
+            long splitsBefore = pageSplits();
+            long begin = System.nanoTime();
+            List<Object[]> orders = new ArrayList<>(BATCH);
+            List<Object[]> details = new ArrayList<>(BATCH * LINES_PER_ORDER);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < ORDERS; i++) {
+                long orderId = generator.nextId();
+                orders.add(new Object[]{orderId, (long) i, "bench", now, 30L});
+                for (int j = 0; j < LINES_PER_ORDER; j++) {
+                    details.add(new Object[]{"菜品" + j, "份", 1, 10L, 10L, orderId, now});
+                }
+                if (orders.size() == BATCH || i == ORDERS - 1) {
+                    // 随机策略可能碰撞，用INSERT IGNORE保证基准能跑完
+                    jdbcTemplate.batchUpdate("INSERT IGNORE INTO " + orderTable
+                            + " (orderId, userId, name, orderTime, orderPrice) VALUES (?, ?, ?, ?, ?)", orders);
+                    jdbcTemplate.batchUpdate("INSERT INTO " + detailTable
+                            + " (name, unit, weight, price, totalPrice, orderId, createTime) VALUES (?, ?, ?, ?, ?, ?, ?)", details);
+                    orders.clear();
+                    details.clear();
+                }
+            }
+            long costMs = (System.nanoTime() - begin) / 1_000_000;
+            long splitsAfter = pageSplits();
+            long splits = splitsBefore < 0 || splitsAfter < 0 ? -1 : splitsAfter - splitsBefore;
+
+            jdbcTemplate.execute("ANALYZE TABLE " + orderTable + ", " + detailTable);
+            Map<String, Object> orderSize = tableSize(orderTable);
+            Map<String, Object> detailSize = tableSize(detailTable);
+            System.out.println(String.format("%s | %d | %.1f | %d | %d | %d",
+                    label, costMs, ORDERS / (costMs / 1000.0), splits,
+                    ((Number) orderSize.get("DATA_LENGTH")).longValue() / 1024,
+                    ((Number) detailSize.get("INDEX_LENGTH")).longValue() / 1024));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + orderTable);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + detailTable);
+        }
+    }
+
+    private void enablePageSplitMetric() {
+        try {
+            jdbcTemplate.execute("SET GLOBAL innodb_monitor_enable = 'index_page_splits'");
+        } catch (Exception e) {
+            System.out.println("无法开启index_page_splits统计：" + e.getMessage());
+        }
+    }
+
+    private long pageSplits() {
+        try {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT FROM information_schema.INNODB_METRICS WHERE NAME = 'index_page_splits'", Long.class);
+            return count == null ? -1 : count;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private Map<String, Object> tableSize(String table) {
+        return jdbcTemplate.queryForMap("SELECT DATA_LENGTH, INDEX_LENGTH FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", table);
+    }
+}
@@ -0,0 +1,125 @@
+package com.boda.canteen;
+
+import cn.hutool.json.JSONUtil;
+import com.boda.canteen.common.OrderIntakeJournal;
+import com.boda.canteen.common.OrderIntakeRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 订单受理日志：追加、重启回放、入库后复用空间（环形折返）、空间不足拒绝
+ */
+public class OrderIntakeJournalTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void replayPendingAfterReopen() throws Exception {
+        File path = new File(dir, "intake.journal");
+        OrderIntakeJournal journal = new OrderIntakeJournal(path, 64 * 1024, false);
+        long first = journal.append(payload(1L));
+        journal.append(payload(2L));
+        journal.append(payload(3L));
+        journal.markDrained(first);
+        // 模拟进程退出后重启
+        journal.close();
+
+        OrderIntakeJournal reopened = new OrderIntakeJournal(path, 64 * 1024, false);
+        List<OrderIntakeJournal.Entry> pending = reopened.readPending();
+        Assertions.assertEquals(2, pending.size());
+        OrderIntakeRecord record = JSONUtil.toBean(new String(pending.get(0).getPayload(), StandardCharsets.UTF_8), OrderIntakeRecord.class);
+        Assertions.assertEquals(2L, record.getOrderId());
+        Assertions.assertEquals(1, record.getLines().size());
+        Assertions.assertEquals("红烧肉", record.getLines().get(0).getName());
+        Assertions.assertEquals(2, record.toDetails().get(0).getWeight());
+
+        reopened.markDrained(pending.get(1).getEndOffset());
+        Assertions.assertEquals(0, reopened.pendingBytes());
+        Assertions.assertTrue(reopened.readPending().isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    public void rejectWhenFullAndReuseAfterDrain() throws Exception {
+        OrderIntakeJournal journal = new OrderIntakeJournal(new File(dir, "small.journal"), 1024, false);
+        long last = 0;
+        int appended = 0;
+        while (true) {
+            long end = journal.append(payload(appended));
+            if (end < 0) {
+                break;
+            }
+            last = end;
+            appended++;
+        }
+        Assertions.assertTrue(appended > 0);
+        journal.markDrained(last);
+        // 全部入库后空间归位，可以继续追加
+        Assertions.assertTrue(journal.append(payload(99L)) > 0);
+        journal.close();
+    }
+
+    @Test
+    public void interleavedAppendAndDrainWrapsAround() throws Exception {
+        File path = new File(dir, "ring.journal");
+        int capacity = 1024;
+        OrderIntakeJournal journal = new OrderIntakeJournal(path, capacity, false);
+        // 写入方始终领先入库方若干条，从不完全排空
+        Deque<long[]> pending = new ArrayDeque<>();
+        long written = 0;
+        long orderId = 0;
+        while (written < 5L * capacity) {
+            byte[] payload = payload(orderId);
+            long end = journal.append(payload);
+            Assertions.assertTrue(end > 0, "第" + orderId + "条追加失败，未入库" + journal.pendingBytes() + "字节");
+            pending.addLast(new long[]{orderId, end});
+            written += 4 + payload.length;
+            orderId++;
+            if (pending.size() > 2) {
+                journal.markDrained(pending.removeFirst()[1]);
+            }
+        }
+        Assertions.assertTrue(journal.pendingBytes() > 0);
+        journal.close();
+
+        // 折返后的未入库记录在重启后按顺序回放
+        OrderIntakeJournal reopened = new OrderIntakeJournal(path, capacity, false);
+        List<OrderIntakeJournal.Entry> entries = reopened.readPending();
+        Assertions.assertEquals(pending.size(), entries.size());
+        for (OrderIntakeJournal.Entry entry : entries) {
+            long[] expected = pending.removeFirst();
+            OrderIntakeRecord record = JSONUtil.toBean(new String(entry.getPayload(), StandardCharsets.UTF_8), OrderIntakeRecord.class);
+            Assertions.assertEquals(expected[0], record.getOrderId());
+            Assertions.assertEquals(expected[1], entry.getEndOffset());
+        }
+        reopened.markDrained(entries.get(entries.size() - 1).getEndOffset());
+        Assertions.assertEquals(0, reopened.pendingBytes());
+        Assertions.assertTrue(reopened.append(payload(orderId)) > 0);
+        reopened.close();
+    }
+
+    private byte[] payload(long orderId) {
+        OrderIntakeRecord record = new OrderIntakeRecord();
+        record.setOrderId(orderId);
+        record.setUserId(1L);
+        record.setOrderTime(System.currentTimeMillis());
+        record.setServiceDate(20000L);
+        OrderIntakeRecord.Line line = new OrderIntakeRecord.Line();
+        line.setName("红烧肉");
+        line.setUnit("份");
+        line.setWeight(2);
+        line.setPrice(12L);
+        line.setTotalPrice(24L);
+        record.getLines().add(line);
+        record.getCartIds().add(5);
+        return JSONUtil.toJsonStr(record).getBytes(StandardCharsets.UTF_8);
+    }
+}
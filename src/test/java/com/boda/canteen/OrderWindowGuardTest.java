@@ -0,0 +1,65 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.OrderWindowGuard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 时段预占守卫：同一用户同一时段并发提交只允许一个通过
+ */
+public class OrderWindowGuardTest {
+
+    @Test
+    public void onlyOneConcurrentReservationWins() throws Exception {
+        OrderWindowGuard guard = new OrderWindowGuard();
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                start.await();
+                if (guard.tryReserve(1001L, 20000L)) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, winners.get());
+    }
+
+    @Test
+    public void releaseAndNextWindow() {
+        OrderWindowGuard guard = new OrderWindowGuard();
+        Assertions.assertTrue(guard.tryReserve(7L, 100L));
+        Assertions.assertFalse(guard.tryReserve(7L, 100L));
+        // 新时段可直接预占，与旧时段互不影响（提前订餐）
+        Assertions.assertTrue(guard.tryReserve(7L, 101L));
+        Assertions.assertFalse(guard.tryReserve(7L, 100L));
+        // 释放旧时段不影响新时段
+        guard.release(7L, 100L);
+        Assertions.assertFalse(guard.tryReserve(7L, 101L));
+        guard.release(7L, 101L);
+        Assertions.assertTrue(guard.tryReserve(7L, 101L));
+        Assertions.assertTrue(guard.tryReserve(7L, 100L));
+    }
+
+    @Test
+    public void expiredWindowsArePruned() {
+        OrderWindowGuard guard = new OrderWindowGuard();
+        Assertions.assertTrue(guard.tryReserve(9L, 100L));
+        // 远期时段预占时清理过期时段，过期时段可重新预占
+        Assertions.assertTrue(guard.tryReserve(9L, 200L));
+        Assertions.assertTrue(guard.tryReserve(9L, 100L));
+        Assertions.assertFalse(guard.tryReserve(9L, 200L));
+    }
+}
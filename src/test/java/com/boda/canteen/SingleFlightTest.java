@@ -0,0 +1,97 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.SingleFlight;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求合并：并发相同key只执行一次并共享结果，异常传给所有等待者，执行结束后不缓存
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flight.execute("k", () -> {
+                entered.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            })));
+            Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(pool.submit(() -> flight.execute("k", executions::incrementAndGet)));
+            }
+            // 等待其余调用都挂到正在执行的查询上
+            while ((long) flight.metrics().get("coalesced") < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Integer> f : results) {
+                Assertions.assertEquals(1, f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(1L, flight.metrics().get("executions"));
+        Assertions.assertEquals((long) threads - 1, flight.metrics().get("coalesced"));
+        Assertions.assertEquals(0, flight.metrics().get("inFlight"));
+
+        // 执行结束后不缓存：再次调用重新执行
+        Assertions.assertEquals(2, flight.execute("k", executions::incrementAndGet));
+    }
+
+    @Test
+    public void failureIsSharedAndNotRemembered() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                entered.countDown();
+                await(release);
+                throw new IllegalStateException("查询失败");
+            }));
+            Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<String> follower = pool.submit(() -> flight.execute("k", () -> "不应执行"));
+            while ((long) flight.metrics().get("coalesced") < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> f : List.of(leader, follower)) {
+                Exception e = Assertions.assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+                Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assertions.assertEquals("ok", flight.execute("k", () -> "ok"));
+        // 不同key互不等待
+        Assertions.assertEquals("other", flight.execute("other", () -> "other"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
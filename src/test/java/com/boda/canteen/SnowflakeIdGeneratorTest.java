@@ -0,0 +1,53 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID：单线程严格递增，多线程无重复，节点ID编码正确
+ */
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void monotonicInSingleThread() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        long last = generator.nextId();
+        for (int i = 0; i < 200_000; i++) {
+            long id = generator.nextId();
+            Assertions.assertTrue(id > last, "ID必须严格递增");
+            Assertions.assertEquals(3, (id >>> 12) & SnowflakeIdGenerator.MAX_NODE_ID);
+            last = id;
+        }
+    }
+
+    @Test
+    public void uniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void rejectInvalidNodeId() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+    }
+}
@@ -0,0 +1,137 @@
+package com.boda.canteen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平台线程 vs 虚拟线程：并发请求承载能力对比
+ * 同一份应用分别以两种线程模式启动（Tomcat最大线程数刻意调小，模拟线程池先于数据库耗尽），
+ * 以不同并发数请求需要登录、会查询数据库的订单分页接口，对比吞吐、p99延迟和失败数
+ * 虚拟线程模式需要JDK 21+，低版本JDK只输出平台线程结果
+ * 运行方式：mvn test -Pbench
+ */
+@EnabledIfSystemProperty(named = "canteen.bench", matches = "true")
+public class ThreadModeCapacityBenchmarkTest {
+
+    private static final int[] CONCURRENCY = {50, 200, 800};
+    private static final int REQUESTS_PER_LEVEL = 4000;
+    private static final int TOMCAT_MAX_THREADS = 20;
+    private static final int DB_POOL_SIZE = 20;
+    private static final String USER = "bench_thread_mode";
+    private static final String PASSWORD = "123456";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newFixedThreadPool(64))
+            .build();
+
+    @Test
+    public void comparePlatformAndVirtualThreads() throws Exception {
+        System.out.println("===== 线程模式并发承载对比（tomcat.threads.max=" + TOMCAT_MAX_THREADS
+                + "，hikari.maximum-pool-size=" + DB_POOL_SIZE + "，每档" + REQUESTS_PER_LEVEL + "次请求） =====");
+        System.out.println("线程模式 | 并发数 | 吞吐(次/秒) | p50(ms) | p99(ms) | 失败数");
+        run(false);
+        if (Runtime.version().feature() >= 21) {
+            run(true);
+        } else {
+            System.out.println("当前JDK " + Runtime.version().feature() + " 不支持虚拟线程，跳过虚拟线程模式（请使用JDK 21+运行）");
+        }
+    }
+
+    private void run(boolean virtual) throws Exception {
+        // 以命令行参数传入，优先级高于application.yml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CanteenApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "--server.tomcat.accept-count=10000",
+                        "--server.tomcat.max-connections=10000",
+                        "--spring.datasource.hikari.maximum-pool-size=" + DB_POOL_SIZE,
+                        "--canteen.captcha.enabled=false",
+                        "--canteen.admission.max-concurrent=100000",
+                        "--canteen.admission.user-rate-per-second=100000",
+                        "--canteen.admission.user-burst=100000",
+                        "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                        "--logging.level.root=warn");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        try {
+            jdbcTemplate.update("DELETE FROM myuser WHERE username = ?", USER);
+            jdbcTemplate.update("INSERT INTO myuser (name, username, password, role) VALUES (?, ?, ?, ?)",
+                    "线程模式基准", USER, context.getBean(PasswordEncoder.class).encode(PASSWORD), "manager");
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String cookie = login(port);
+            URI uri = URI.create("http://localhost:" + port + "/order/page?page=1&limit=10");
+            for (int concurrency : CONCURRENCY) {
+                measure(virtual ? "虚拟线程" : "平台线程", concurrency, uri, cookie);
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM myuser WHERE username = ?", USER);
+            context.close();
+        }
+    }
+
+    private void measure(String label, int concurrency, URI uri, String cookie) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Cookie", cookie)
+                .GET()
+                .build();
+        // 预热
+        for (int i = 0; i < 200; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        long[] latencies = new long[REQUESTS_PER_LEVEL];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(REQUESTS_PER_LEVEL);
+        long begin = System.nanoTime();
+        for (int i = 0; i < REQUESTS_PER_LEVEL; i++) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+                latencies[next.getAndIncrement()] = System.nanoTime() - start;
+                if (ex != null || response.statusCode() != 200) {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Arrays.sort(latencies);
+        System.out.println(String.format("%s | %d | %.1f | %.1f | %.1f | %d", label, concurrency,
+                REQUESTS_PER_LEVEL / seconds,
+                latencies[REQUESTS_PER_LEVEL / 2] / 1e6,
+                latencies[(int) (REQUESTS_PER_LEVEL * 0.99) - 1] / 1e6,
+                failures.get()));
+    }
+
+    private String login(int port) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login/userLogin"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=" + USER + "&password=" + PASSWORD))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("JSESSIONID="))
+                .map(c -> c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("登录失败：" + response.body()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.boda.canteen;
+
+import com.boda.canteen.common.TokenBucketLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单用户令牌桶：突发容量、等待时间、并发下不超发、满桶淘汰
+ */
+public class TokenBucketLimiterTest {
+
+    @Test
+    public void burstThenReject() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 5);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire(1L));
+        }
+        long wait = limiter.tryAcquire(1L);
+        Assertions.assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1));
+        // 其他用户不受影响
+        Assertions.assertEquals(0, limiter.tryAcquire(2L));
+    }
+
+    @Test
+    public void noOverGrantUnderContention() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(0.001, 10);
+        int threads = 16;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire(42L) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(10, granted.get());
+    }
+
+    @Test
+    public void sweepFullBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, 1);
+        limiter.tryAcquire(1L);
+        limiter.tryAcquire(2L);
+        Assertions.assertEquals(2, limiter.size());
+        limiter.sweep(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertEquals(0, limiter.size());
+    }
+}